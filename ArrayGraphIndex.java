@@ -0,0 +1,106 @@
+import java.util.Arrays;
+import java.util.Map;
+
+final class ArrayGraphIndex extends GraphIndex {
+    private final String[] nodeNames;
+    private final Map<String, Integer> nodeIds;
+    private final boolean[] special;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+
+    ArrayGraphIndex(String[] nodeNames, Map<String, Integer> nodeIds, boolean[] special, int[] outOffsets, int[] outTargets, int[] outWeights) {
+        int n = nodeNames.length;
+        this.nodeNames = nodeNames;
+        this.nodeIds = nodeIds;
+        this.special = special;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < outOffsets[n]; k++) {
+            offsets[outTargets[k] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] sources = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int s = 0; s < n; s++) {
+            for (int k = outOffsets[s]; k < outOffsets[s + 1]; k++) {
+                int slot = fill[outTargets[k]]++;
+                sources[slot] = s;
+                weights[slot] = outWeights[k];
+            }
+        }
+        this.inOffsets = offsets;
+        this.inSources = sources;
+        this.inWeights = weights;
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeNames.length;
+    }
+
+    @Override
+    public int nodeId(String nodeName) {
+        Integer id = nodeIds.get(nodeName);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public String nodeName(int id) {
+        return nodeNames[id];
+    }
+
+    @Override
+    public boolean isSpecial(int id) {
+        return special[id];
+    }
+
+    @Override
+    public int inStart(int id) {
+        return inOffsets[id];
+    }
+
+    @Override
+    public int inEnd(int id) {
+        return inOffsets[id + 1];
+    }
+
+    @Override
+    public int inSource(int k) {
+        return inSources[k];
+    }
+
+    @Override
+    public int inWeight(int k) {
+        return inWeights[k];
+    }
+
+    @Override
+    public int outStart(int id) {
+        return outOffsets[id];
+    }
+
+    @Override
+    public int outEnd(int id) {
+        return outOffsets[id + 1];
+    }
+
+    @Override
+    public int outTarget(int k) {
+        return outTargets[k];
+    }
+
+    @Override
+    public int outWeight(int k) {
+        return outWeights[k];
+    }
+}
@@ -0,0 +1,447 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+final class ChipEngine {
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final GraphIndex index;
+    private final BitSet sadNodes = new BitSet();
+    private long[] chips;
+    private long[] sums;
+    private BigInteger[] wideChips;
+    private BigInteger[] wideSums;
+    private int[] touchStamps;
+    private int touchRound;
+    private int[] touched;
+    private long[] roundChips;
+    private long[] roundOldChips;
+    private long[] roundSums;
+    private BigInteger[] wideRoundChips;
+    private BigInteger[] wideRoundSums;
+    private long reflectionCount;
+    private long stateEvaluations;
+    private long neighborSumUpdates;
+    private int maxChipBitLength;
+    private long modCount;
+
+    ChipEngine(ChipEngine other) {
+        this.index = other.index;
+        this.sadNodes.or(other.sadNodes);
+        this.chips = other.chips == null ? null : other.chips.clone();
+        this.sums = other.sums == null ? null : other.sums.clone();
+        this.wideChips = other.wideChips == null ? null : other.wideChips.clone();
+        this.wideSums = other.wideSums == null ? null : other.wideSums.clone();
+        this.maxChipBitLength = other.maxChipBitLength;
+    }
+
+    ChipEngine(GraphIndex index, BigInteger[] initialChips) {
+        this.index = index;
+        int n = index.nodeCount();
+        boolean fitsInLong = true;
+        for (BigInteger c : initialChips) {
+            if (c.bitLength() > 62) {
+                fitsInLong = false;
+                break;
+            }
+        }
+        if (fitsInLong) {
+            chips = new long[n];
+            for (int id = 0; id < n; id++) {
+                chips[id] = initialChips[id].longValue();
+            }
+            initializeNarrowSums();
+        } else {
+            wideChips = initialChips.clone();
+            initializeWideSums();
+        }
+        seedMaxChipBitLength();
+        markSadNodes();
+    }
+
+    ChipEngine(GraphIndex index, long[] initialChips) {
+        this.index = index;
+        int n = index.nodeCount();
+        boolean fitsInLong = true;
+        for (long c : initialChips) {
+            if (c > (1L << 62) - 1 || c < -(1L << 62)) {
+                fitsInLong = false;
+                break;
+            }
+        }
+        if (fitsInLong) {
+            chips = initialChips.clone();
+            initializeNarrowSums();
+        } else {
+            wideChips = new BigInteger[n];
+            for (int id = 0; id < n; id++) {
+                wideChips[id] = BigInteger.valueOf(initialChips[id]);
+            }
+            initializeWideSums();
+        }
+        seedMaxChipBitLength();
+        markSadNodes();
+    }
+
+    private void seedMaxChipBitLength() {
+        for (int id = 0, n = index.nodeCount(); id < n; id++) {
+            int bits = chips != null ? bitLength(chips[id]) : wideChips[id].bitLength();
+            if (bits > maxChipBitLength) {
+                maxChipBitLength = bits;
+            }
+        }
+    }
+
+    private void initializeNarrowSums() {
+        int n = index.nodeCount();
+        try {
+            sums = new long[n];
+            for (int id = 0; id < n; id++) {
+                sums[id] = computeSum(id);
+            }
+            neighborSumUpdates += n;
+        } catch (ArithmeticException overflow) {
+            promote();
+        }
+    }
+
+    private void initializeWideSums() {
+        int n = index.nodeCount();
+        wideSums = new BigInteger[n];
+        for (int id = 0; id < n; id++) {
+            wideSums[id] = computeWideSum(id);
+        }
+        neighborSumUpdates += n;
+    }
+
+    private void markSadNodes() {
+        for (int id = 0, n = index.nodeCount(); id < n; id++) {
+            if (isSad(id)) {
+                sadNodes.set(id);
+            }
+        }
+    }
+
+    private long computeSum(int id) {
+        long sum = 0;
+        for (int k = index.inStart(id), end = index.inEnd(id); k < end; k++) {
+            sum = Math.addExact(sum, Math.multiplyExact(chips[index.inSource(k)], (long) index.inWeight(k)));
+        }
+        return sum;
+    }
+
+    private BigInteger computeWideSum(int id) {
+        BigInteger sum = BigInteger.ZERO;
+        for (int k = index.inStart(id), end = index.inEnd(id); k < end; k++) {
+            sum = sum.add(wideChips[index.inSource(k)].multiply(BigInteger.valueOf(index.inWeight(k))));
+        }
+        return sum;
+    }
+
+    private void promote() {
+        int n = index.nodeCount();
+        wideChips = new BigInteger[n];
+        for (int id = 0; id < n; id++) {
+            wideChips[id] = BigInteger.valueOf(chips[id]);
+        }
+        initializeWideSums();
+        chips = null;
+        sums = null;
+    }
+
+    public GraphIndex getIndex() {
+        return index;
+    }
+
+    public boolean isWide() {
+        return chips == null;
+    }
+
+    public BigInteger getChips(int id) {
+        return chips != null ? BigInteger.valueOf(chips[id]) : wideChips[id];
+    }
+
+    public int chipBitLength(int id) {
+        return chips != null ? bitLength(chips[id]) : wideChips[id].bitLength();
+    }
+
+    public BigInteger getNeighborsSum(int id) {
+        return sums != null ? BigInteger.valueOf(sums[id]) : wideSums[id];
+    }
+
+    public int compareToNeighbors(int id) {
+        if (chips == null) {
+            return Integer.signum(wideChips[id].shiftLeft(1).compareTo(wideSums[id]));
+        }
+        long c = chips[id];
+        long s = sums[id];
+        long half = s >> 1;
+        if ((s & 1) == 0) {
+            return Long.compare(c, half);
+        }
+        return c <= half ? -1 : 1;
+    }
+
+    private boolean isSad(int id) {
+        stateEvaluations++;
+        return !index.isSpecial(id) && compareToNeighbors(id) < 0;
+    }
+
+    public boolean isSadNode(int id) {
+        return sadNodes.get(id);
+    }
+
+    public int nextSadNode(int fromId) {
+        return sadNodes.nextSetBit(fromId);
+    }
+
+    public int sadNodeCount() {
+        return sadNodes.cardinality();
+    }
+
+    public long getModCount() {
+        return modCount;
+    }
+
+    public long getDeficitExact(int id) {
+        if (chips == null) {
+            return wideSums[id].subtract(wideChips[id].shiftLeft(1)).longValueExact();
+        }
+        return Math.subtractExact(sums[id], Math.multiplyExact(chips[id], 2L));
+    }
+
+    public BigInteger getDeficit(int id) {
+        return getNeighborsSum(id).subtract(getChips(id).shiftLeft(1));
+    }
+
+    public void reflect(int id) {
+        if (!sadNodes.get(id)) {
+            throw new IllegalStateException("El nodo '" + index.nodeName(id) + "' no está triste y no puede ser reflejado.");
+        }
+        modCount++;
+        if (chips != null) {
+            try {
+                reflectNarrow(id);
+                return;
+            } catch (ArithmeticException overflow) {
+                promote();
+            }
+        }
+        reflectWide(id);
+    }
+
+    private void reflectNarrow(int id) {
+        long oldChips = chips[id];
+        long newChips = Math.subtractExact(sums[id], oldChips);
+        long delta = Math.subtractExact(newChips, oldChips);
+        int start = index.outStart(id);
+        int end = index.outEnd(id);
+        int k = start;
+        try {
+            for (; k < end; k++) {
+                int target = index.outTarget(k);
+                sums[target] = Math.addExact(sums[target], Math.multiplyExact(delta, (long) index.outWeight(k)));
+            }
+        } catch (ArithmeticException overflow) {
+            for (int undo = start; undo < k; undo++) {
+                sums[index.outTarget(undo)] -= delta * index.outWeight(undo);
+            }
+            throw overflow;
+        }
+        chips[id] = newChips;
+        recordReflection(end - start, bitLength(newChips));
+        updateSadAfterReflection(id);
+    }
+
+    private static int bitLength(long value) {
+        return 64 - Long.numberOfLeadingZeros(value ^ (value >> 63));
+    }
+
+    private void recordReflection(int sumUpdates, int bitLength) {
+        reflectionCount++;
+        neighborSumUpdates += sumUpdates;
+        if (bitLength > maxChipBitLength) {
+            maxChipBitLength = bitLength;
+        }
+    }
+
+    int getMaxChipBitLength() {
+        return maxChipBitLength;
+    }
+
+    void drainMetrics(EngineMetrics metrics) {
+        metrics.add(reflectionCount, stateEvaluations, neighborSumUpdates, maxChipBitLength);
+        reflectionCount = 0;
+        stateEvaluations = 0;
+        neighborSumUpdates = 0;
+    }
+
+    private void reflectWide(int id) {
+        BigInteger oldChips = wideChips[id];
+        BigInteger newChips = wideSums[id].subtract(oldChips);
+        BigInteger delta = newChips.subtract(oldChips);
+        wideChips[id] = newChips;
+        for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+            int target = index.outTarget(k);
+            wideSums[target] = wideSums[target].add(delta.multiply(BigInteger.valueOf(index.outWeight(k))));
+        }
+        recordReflection(index.outEnd(id) - index.outStart(id), newChips.bitLength());
+        updateSadAfterReflection(id);
+    }
+
+    private void updateSadAfterReflection(int id) {
+        sadNodes.set(id, isSad(id));
+        for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+            int target = index.outTarget(k);
+            sadNodes.set(target, isSad(target));
+        }
+    }
+
+    public void reflectIndependentSet(int[] ids, int count, ForkJoinPool pool) {
+        for (int i = 0; i < count; i++) {
+            if (!sadNodes.get(ids[i])) {
+                throw new IllegalStateException("El nodo '" + index.nodeName(ids[i]) + "' no está triste y no puede ser reflejado.");
+            }
+        }
+        modCount++;
+        int touchedCount = collectTouched(ids, count);
+        if (chips != null) {
+            try {
+                reflectIndependentSetNarrow(ids, count, touchedCount, pool);
+                return;
+            } catch (ArithmeticException overflow) {
+                promote();
+            }
+        }
+        reflectIndependentSetWide(ids, count, touchedCount, pool);
+    }
+
+    private int collectTouched(int[] ids, int count) {
+        if (touchStamps == null) {
+            touchStamps = new int[index.nodeCount()];
+            touched = new int[index.nodeCount()];
+        }
+        if (++touchRound == Integer.MAX_VALUE) {
+            Arrays.fill(touchStamps, 0);
+            touchRound = 1;
+        }
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            for (int k = index.outStart(ids[i]), end = index.outEnd(ids[i]); k < end; k++) {
+                int target = index.outTarget(k);
+                if (touchStamps[target] != touchRound) {
+                    touchStamps[target] = touchRound;
+                    touched[size++] = target;
+                }
+            }
+        }
+        return size;
+    }
+
+    private void reflectIndependentSetNarrow(int[] ids, int count, int touchedCount, ForkJoinPool pool) {
+        if (roundChips == null) {
+            int n = index.nodeCount();
+            roundChips = new long[n];
+            roundOldChips = new long[n];
+            roundSums = new long[n];
+        }
+        int[] touched = this.touched;
+        long[] newChips = roundChips;
+        long[] oldChips = roundOldChips;
+        long[] newSums = roundSums;
+        forEach(pool, count, i -> newChips[i] = Math.subtractExact(sums[ids[i]], chips[ids[i]]));
+        for (int i = 0; i < count; i++) {
+            oldChips[i] = chips[ids[i]];
+            chips[ids[i]] = newChips[i];
+        }
+        try {
+            forEach(pool, touchedCount, j -> newSums[j] = computeSum(touched[j]));
+        } catch (ArithmeticException overflow) {
+            for (int i = 0; i < count; i++) {
+                chips[ids[i]] = oldChips[i];
+            }
+            throw overflow;
+        }
+        for (int j = 0; j < touchedCount; j++) {
+            sums[touched[j]] = newSums[j];
+        }
+        for (int i = 0; i < count; i++) {
+            recordReflection(0, bitLength(newChips[i]));
+        }
+        neighborSumUpdates += touchedCount;
+        updateSadAfterRound(ids, count, touchedCount);
+    }
+
+    private void reflectIndependentSetWide(int[] ids, int count, int touchedCount, ForkJoinPool pool) {
+        if (wideRoundChips == null) {
+            int n = index.nodeCount();
+            wideRoundChips = new BigInteger[n];
+            wideRoundSums = new BigInteger[n];
+        }
+        int[] touched = this.touched;
+        BigInteger[] newChips = wideRoundChips;
+        BigInteger[] newSums = wideRoundSums;
+        forEach(pool, count, i -> newChips[i] = wideSums[ids[i]].subtract(wideChips[ids[i]]));
+        for (int i = 0; i < count; i++) {
+            wideChips[ids[i]] = newChips[i];
+        }
+        forEach(pool, touchedCount, j -> newSums[j] = computeWideSum(touched[j]));
+        for (int j = 0; j < touchedCount; j++) {
+            wideSums[touched[j]] = newSums[j];
+        }
+        for (int i = 0; i < count; i++) {
+            recordReflection(0, newChips[i].bitLength());
+        }
+        neighborSumUpdates += touchedCount;
+        updateSadAfterRound(ids, count, touchedCount);
+    }
+
+    private void updateSadAfterRound(int[] ids, int count, int touchedCount) {
+        for (int i = 0; i < count; i++) {
+            sadNodes.set(ids[i], isSad(ids[i]));
+        }
+        for (int j = 0; j < touchedCount; j++) {
+            sadNodes.set(touched[j], isSad(touched[j]));
+        }
+    }
+
+    private static void forEach(ForkJoinPool pool, int count, IntConsumer action) {
+        if (pool == null || count < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < count; i++) {
+                action.accept(i);
+            }
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> forRange(0, count, action)));
+        }
+    }
+
+    private static void forRange(int from, int to, IntConsumer action) {
+        if (to - from <= PARALLEL_THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                action.accept(i);
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            ForkJoinTask.invokeAll(ForkJoinTask.adapt(() -> forRange(from, middle, action)), ForkJoinTask.adapt(() -> forRange(middle, to, action)));
+        }
+    }
+
+    public void verifyNeighborSums() {
+        for (int id = 0, n = index.nodeCount(); id < n; id++) {
+            BigInteger expected = BigInteger.ZERO;
+            for (int k = index.inStart(id), end = index.inEnd(id); k < end; k++) {
+                expected = expected.add(getChips(index.inSource(k)).multiply(BigInteger.valueOf(index.inWeight(k))));
+            }
+            if (!expected.equals(getNeighborsSum(id))) {
+                throw new IllegalStateException("Suma de vecinos inconsistente en el nodo '" + index.nodeName(id) + "': caché " + getNeighborsSum(id) + ", recalculada " + expected + ".");
+            }
+            boolean expectedSad = !index.isSpecial(id) && getChips(id).shiftLeft(1).compareTo(expected) < 0;
+            if (sadNodes.get(id) != expectedSad) {
+                throw new IllegalStateException("Estado triste inconsistente en el nodo '" + index.nodeName(id) + "'.");
+            }
+        }
+    }
+}
@@ -0,0 +1,641 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class ConvergenceCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    static final int DEFAULT_SEARCH_BUDGET = 50_000;
+    static final int SEARCH_WORK_PER_ELEMENT = 64;
+    static final long MIN_SEARCH_WORK = 1L << 20;
+
+    static final class Key {
+        private final int[] structure;
+        private final BigInteger[] chips;
+        private final int hash;
+
+        Key(int[] structure, BigInteger[] chips) {
+            this.structure = structure;
+            this.chips = chips;
+            this.hash = 31 * Arrays.hashCode(structure) + Arrays.hashCode(chips);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && Arrays.equals(structure, other.structure) && Arrays.equals(chips, other.chips);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        byte[] encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 * structure.length + 8 * chips.length);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(structure.length);
+                for (int value : structure) {
+                    out.writeInt(value);
+                }
+                for (BigInteger value : chips) {
+                    byte[] encoded = value.toByteArray();
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    static final class CanonicalForm {
+        final Key key;
+        final int[] positions;
+
+        CanonicalForm(Key key, int[] positions) {
+            this.key = key;
+            this.positions = positions;
+        }
+    }
+
+    public static final class Result {
+        public final int steps;
+        public final String engine;
+        public final BigInteger[] finalChips;
+
+        Result(int steps, String engine, BigInteger[] finalChips) {
+            this.steps = steps;
+            this.engine = engine;
+            this.finalChips = finalChips;
+        }
+    }
+
+    private static final class Entry {
+        final int steps;
+        final String engine;
+        final BigInteger[] canonicalChips;
+
+        Entry(int steps, String engine, BigInteger[] canonicalChips) {
+            this.steps = steps;
+            this.engine = engine;
+            this.canonicalChips = canonicalChips;
+        }
+    }
+
+    private final int maxEntries;
+    private final int searchBudget;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final ResultsStore store;
+    private long hits;
+    private long storeHits;
+    private long misses;
+
+    public ConvergenceCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ConvergenceCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    public ConvergenceCache(int maxEntries, ResultsStore store) {
+        this(maxEntries, store, DEFAULT_SEARCH_BUDGET);
+    }
+
+    ConvergenceCache(int maxEntries, ResultsStore store, int searchBudget) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de la caché debe ser positivo.");
+        }
+        this.maxEntries = maxEntries;
+        this.searchBudget = searchBudget;
+        this.store = store;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > ConvergenceCache.this.maxEntries;
+            }
+        };
+    }
+
+    CanonicalForm canonicalForm(GraphIndex index, BigInteger[] chips) {
+        return new CanonicalLabeler(index, chips, searchBudget).run();
+    }
+
+    public ResultsStore getStore() {
+        return store;
+    }
+
+    synchronized Result get(CanonicalForm form) {
+        Entry entry = entries.get(form.key);
+        if (entry == null && store != null) {
+            ResultsStore.Entry stored = store.find(form.key.encode());
+            if (stored != null) {
+                BigInteger[] canonicalChips = new BigInteger[stored.getNodeCount()];
+                for (int position = 0; position < canonicalChips.length; position++) {
+                    canonicalChips[position] = stored.getChips(position);
+                }
+                entry = new Entry(stored.getSteps(), stored.getEngine(), canonicalChips);
+                entries.put(form.key, entry);
+                storeHits++;
+            }
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        BigInteger[] finalChips = new BigInteger[form.positions.length];
+        for (int id = 0; id < finalChips.length; id++) {
+            finalChips[id] = entry.canonicalChips[form.positions[id]];
+        }
+        return new Result(entry.steps, entry.engine, finalChips);
+    }
+
+    synchronized void put(CanonicalForm form, int steps, String engine, BigInteger[] finalChips) {
+        BigInteger[] canonicalChips = new BigInteger[finalChips.length];
+        for (int id = 0; id < finalChips.length; id++) {
+            canonicalChips[form.positions[id]] = finalChips[id];
+        }
+        entries.put(form.key, new Entry(steps, engine, canonicalChips));
+        if (store != null) {
+            try {
+                store.append(form.key.encode(), steps, engine, canonicalChips);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo guardar el resultado en el almacén.", e);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getStoreHits() {
+        return storeHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static final class Partition {
+        final int[] elements;
+        final int[] position;
+        final int[] cellOf;
+        final int[] cellEnd;
+        int cells;
+
+        Partition(int n) {
+            elements = new int[n];
+            position = new int[n];
+            cellOf = new int[n];
+            cellEnd = new int[n];
+        }
+
+        Partition(Partition other) {
+            elements = other.elements.clone();
+            position = other.position.clone();
+            cellOf = other.cellOf.clone();
+            cellEnd = other.cellEnd.clone();
+            cells = other.cells;
+        }
+
+        boolean isDiscrete() {
+            return cells == elements.length;
+        }
+    }
+
+    private static final class Frame {
+        final Partition partition;
+        final int[] fixed;
+        final int target;
+        final int end;
+        final int[] candidates;
+        final List<Integer> explored = new ArrayList<>();
+        int next;
+        int pending = -1;
+        int[] orbits;
+        int processed;
+
+        Frame(Partition partition, int[] fixed) {
+            this.partition = partition;
+            this.fixed = fixed;
+            int cell = 0;
+            while (partition.cellEnd[cell] - cell == 1) {
+                cell = partition.cellEnd[cell];
+            }
+            this.target = cell;
+            this.end = partition.cellEnd[cell];
+            this.candidates = Arrays.copyOfRange(partition.elements, cell, end);
+            Arrays.sort(candidates);
+        }
+    }
+
+    private static final class CanonicalLabeler {
+        private static final int ABORTED = -1;
+
+        private final GraphIndex index;
+        private final BigInteger[] chips;
+        private final int n;
+        private final long[] values;
+        private final int[] touched;
+        private final int[] touchStamps;
+        private int touchRound;
+        private final boolean[] queued;
+        private final int[] queue;
+        private final List<int[]> automorphisms = new ArrayList<>();
+        private int remainingLeaves;
+        private long remainingWork;
+        private int[] bestStructure;
+        private int[] bestPositions;
+        private int[] bestPath;
+
+        CanonicalLabeler(GraphIndex index, BigInteger[] chips, int budget) {
+            this.index = index;
+            this.chips = chips;
+            this.n = index.nodeCount();
+            this.values = new long[n];
+            this.touched = new int[n];
+            this.touchStamps = new int[n];
+            this.queued = new boolean[n];
+            this.queue = new int[n + 1];
+            this.remainingLeaves = budget;
+            long elements = (long) n + (n == 0 ? 0 : index.outEnd(n - 1)) + (n == 0 ? 0 : index.inEnd(n - 1));
+            this.remainingWork = Math.max(MIN_SEARCH_WORK, SEARCH_WORK_PER_ELEMENT * elements);
+        }
+
+        CanonicalForm run() {
+            Integer[] order = new Integer[n];
+            for (int id = 0; id < n; id++) {
+                order[id] = id;
+            }
+            Comparator<Integer> initialOrder = (a, b) -> {
+                int c = Boolean.compare(index.isSpecial(a), index.isSpecial(b));
+                return c != 0 ? c : chips[a].compareTo(chips[b]);
+            };
+            Arrays.sort(order, initialOrder);
+
+            Partition partition = new Partition(n);
+            int queueLength = 0;
+            for (int i = 0; i < n; i++) {
+                int v = order[i];
+                partition.elements[i] = v;
+                partition.position[v] = i;
+                if (i == 0 || initialOrder.compare(order[i - 1], v) != 0) {
+                    partition.cells++;
+                    queue[queueLength++] = i;
+                    queued[i] = true;
+                }
+                partition.cellOf[v] = queue[queueLength - 1];
+            }
+            for (int q = 0; q < queueLength; q++) {
+                int start = queue[q];
+                partition.cellEnd[start] = q + 1 < queueLength ? queue[q + 1] : n;
+            }
+
+            refine(partition, queueLength);
+            if (search(partition) == ABORTED) {
+                return null;
+            }
+            BigInteger[] canonicalChips = new BigInteger[n];
+            for (int id = 0; id < n; id++) {
+                canonicalChips[bestPositions[id]] = chips[id];
+            }
+            return new CanonicalForm(new Key(bestStructure, canonicalChips), bestPositions);
+        }
+
+        private static long mix(int direction, int weight) {
+            long z = ((long) weight << 1 | direction) + 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return (z ^ (z >>> 31)) | 1;
+        }
+
+        private void refine(Partition p, int queueLength) {
+            int head = 0;
+            while (head != queueLength) {
+                int splitter = queue[head];
+                head = head == n ? 0 : head + 1;
+                queued[splitter] = false;
+
+                touchRound++;
+                int touchedCount = 0;
+                for (int i = splitter; i < p.cellEnd[splitter]; i++) {
+                    int u = p.elements[i];
+                    remainingWork -= 1 + index.outEnd(u) - index.outStart(u) + index.inEnd(u) - index.inStart(u);
+                    for (int e = index.outStart(u); e < index.outEnd(u); e++) {
+                        int t = index.outTarget(e);
+                        if (touchStamps[t] != touchRound) {
+                            touchStamps[t] = touchRound;
+                            touched[touchedCount++] = t;
+                        }
+                        values[t] += mix(0, index.outWeight(e));
+                    }
+                    for (int e = index.inStart(u); e < index.inEnd(u); e++) {
+                        int t = index.inSource(e);
+                        if (touchStamps[t] != touchRound) {
+                            touchStamps[t] = touchRound;
+                            touched[touchedCount++] = t;
+                        }
+                        values[t] += mix(1, index.inWeight(e));
+                    }
+                }
+
+                Integer[] byCell = new Integer[touchedCount];
+                for (int i = 0; i < touchedCount; i++) {
+                    byCell[i] = touched[i];
+                }
+                Arrays.sort(byCell, (a, b) -> {
+                    int c = Integer.compare(p.cellOf[a], p.cellOf[b]);
+                    return c != 0 ? c : Long.compare(values[a], values[b]);
+                });
+
+                int i = 0;
+                while (i < touchedCount) {
+                    int cell = p.cellOf[byCell[i]];
+                    int j = i;
+                    while (j < touchedCount && p.cellOf[byCell[j]] == cell) {
+                        j++;
+                    }
+                    queueLength = split(p, cell, byCell, i, j, queueLength);
+                    i = j;
+                }
+                for (int k = 0; k < touchedCount; k++) {
+                    values[touched[k]] = 0;
+                }
+            }
+        }
+
+        private int split(Partition p, int cell, Integer[] byCell, int from, int to, int queueLength) {
+            int end = p.cellEnd[cell];
+            int marked = 0;
+            for (int k = from; k < to; k++) {
+                if (values[byCell[k]] != 0) marked++;
+            }
+            if (marked == 0 || (marked == end - cell && values[byCell[from]] == values[byCell[to - 1]])) {
+                return queueLength;
+            }
+
+            int tail = end - marked;
+            int k = tail;
+            for (int i = from; i < to; i++) {
+                int v = byCell[i];
+                if (values[v] == 0) continue;
+                int target = p.elements[k];
+                int pos = p.position[v];
+                p.elements[pos] = target;
+                p.position[target] = pos;
+                p.elements[k] = v;
+                p.position[v] = k;
+                k++;
+            }
+
+            boolean wasQueued = queued[cell];
+            int largestStart = cell;
+            int largestSize = -1;
+            int start = cell;
+            if (tail > cell) {
+                p.cellEnd[cell] = tail;
+                largestSize = tail - cell;
+                start = tail;
+            }
+            while (start < end) {
+                int stop = start + 1;
+                while (stop < end && values[p.elements[stop]] == values[p.elements[start]]) {
+                    stop++;
+                }
+                if (start != cell) {
+                    p.cells++;
+                }
+                p.cellEnd[start] = stop;
+                for (int i = start; i < stop; i++) {
+                    p.cellOf[p.elements[i]] = start;
+                }
+                if (stop - start > largestSize) {
+                    largestSize = stop - start;
+                    largestStart = start;
+                }
+                start = stop;
+            }
+
+            for (start = cell; start < end; start = p.cellEnd[start]) {
+                if (queued[start] || (!wasQueued && start == largestStart)) {
+                    continue;
+                }
+                queued[start] = true;
+                queue[queueLength] = start;
+                queueLength = queueLength == n ? 0 : queueLength + 1;
+            }
+            return queueLength;
+        }
+
+        private int search(Partition root) {
+            if (root.isDiscrete()) {
+                return leaf(root.position.clone(), new int[0]);
+            }
+            ArrayDeque<Frame> stack = new ArrayDeque<>();
+            stack.push(new Frame(root, new int[0]));
+            int resume = Integer.MAX_VALUE;
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (frame.pending >= 0) {
+                    if (resume < frame.fixed.length) {
+                        stack.pop();
+                        continue;
+                    }
+                    frame.explored.add(frame.pending);
+                    frame.pending = -1;
+                }
+                int v = nextCandidate(frame);
+                if (v < 0) {
+                    stack.pop();
+                    resume = Integer.MAX_VALUE;
+                    continue;
+                }
+                remainingWork -= n;
+                Partition child = individualize(frame, v);
+                int[] deeper = Arrays.copyOf(frame.fixed, frame.fixed.length + 1);
+                deeper[frame.fixed.length] = v;
+                frame.pending = v;
+                if (remainingWork < 0) {
+                    return ABORTED;
+                }
+                if (child.isDiscrete()) {
+                    resume = leaf(child.position.clone(), deeper);
+                    if (resume == ABORTED) {
+                        return ABORTED;
+                    }
+                } else {
+                    stack.push(new Frame(child, deeper));
+                }
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        private int nextCandidate(Frame frame) {
+            while (frame.next < frame.candidates.length) {
+                int v = frame.candidates[frame.next++];
+                if (!frame.explored.isEmpty() && frame.processed < automorphisms.size()) {
+                    if (frame.orbits == null) {
+                        frame.orbits = new int[n];
+                        for (int u = 0; u < n; u++) {
+                            frame.orbits[u] = u;
+                        }
+                        remainingWork -= n;
+                    }
+                    for (; frame.processed < automorphisms.size(); frame.processed++) {
+                        int[] moved = automorphisms.get(frame.processed);
+                        remainingWork -= moved.length;
+                        if (fixesAll(moved, frame.fixed)) {
+                            for (int i = 0; i < moved.length; i += 2) {
+                                int a = find(frame.orbits, moved[i]);
+                                int b = find(frame.orbits, moved[i + 1]);
+                                if (a != b) frame.orbits[Math.max(a, b)] = Math.min(a, b);
+                            }
+                        }
+                    }
+                }
+                if (frame.orbits == null) {
+                    return v;
+                }
+                remainingWork -= frame.explored.size();
+                if (!inExploredOrbit(frame.orbits, v, frame.explored)) {
+                    return v;
+                }
+            }
+            return -1;
+        }
+
+        private Partition individualize(Frame frame, int v) {
+            int target = frame.target;
+            int end = frame.end;
+            Partition child = new Partition(frame.partition);
+            int pos = child.position[v];
+            int first = child.elements[target];
+            child.elements[pos] = first;
+            child.position[first] = pos;
+            child.elements[target] = v;
+            child.position[v] = target;
+            child.cellEnd[target] = target + 1;
+            child.cellEnd[target + 1] = end;
+            for (int i = target + 1; i < end; i++) {
+                child.cellOf[child.elements[i]] = target + 1;
+            }
+            child.cells++;
+            queue[0] = target;
+            queued[target] = true;
+            refine(child, 1);
+            return child;
+        }
+
+        private static boolean fixesAll(int[] moved, int[] fixed) {
+            for (int u : fixed) {
+                for (int i = 0; i < moved.length; i += 2) {
+                    if (moved[i] == u) return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean inExploredOrbit(int[] orbits, int v, List<Integer> explored) {
+            int root = find(orbits, v);
+            for (int u : explored) {
+                if (find(orbits, u) == root) return true;
+            }
+            return false;
+        }
+
+        private static int find(int[] parent, int u) {
+            while (parent[u] != u) {
+                parent[u] = parent[parent[u]];
+                u = parent[u];
+            }
+            return u;
+        }
+
+        private int leaf(int[] positions, int[] path) {
+            if (--remainingLeaves < 0) {
+                return ABORTED;
+            }
+            int[] structure = encode(positions);
+            remainingWork -= structure.length;
+            int c = bestStructure == null ? -1 : Arrays.compare(structure, bestStructure);
+            if (c < 0) {
+                bestStructure = structure;
+                bestPositions = positions;
+                bestPath = path.clone();
+            } else if (c == 0) {
+                int[] vertexAt = new int[n];
+                for (int v = 0; v < n; v++) {
+                    vertexAt[bestPositions[v]] = v;
+                }
+                int support = 0;
+                for (int v = 0; v < n; v++) {
+                    if (vertexAt[positions[v]] != v) support++;
+                }
+                int[] moved = new int[2 * support];
+                int k = 0;
+                for (int v = 0; v < n; v++) {
+                    int image = vertexAt[positions[v]];
+                    if (image != v) {
+                        moved[k++] = v;
+                        moved[k++] = image;
+                    }
+                }
+                automorphisms.add(moved);
+                int common = 0;
+                while (common < path.length && path[common] == bestPath[common]) {
+                    common++;
+                }
+                return common;
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        private int[] encode(int[] positions) {
+            int[] vertexAt = new int[n];
+            for (int v = 0; v < n; v++) {
+                vertexAt[positions[v]] = v;
+            }
+            int edges = n == 0 ? 0 : index.outEnd(n - 1);
+            int[] structure = new int[1 + n + 2 * edges];
+            structure[0] = n;
+            int k = 1 + n;
+            long[] row = new long[n];
+            for (int p = 0; p < n; p++) {
+                int v = vertexAt[p];
+                int degree = 0;
+                for (int e = index.outStart(v); e < index.outEnd(v); e++) {
+                    row[degree++] = ((long) positions[index.outTarget(e)] << 32) | (index.outWeight(e) & 0xFFFFFFFFL);
+                }
+                Arrays.sort(row, 0, degree);
+                structure[1 + p] = (degree << 1) | (index.isSpecial(v) ? 1 : 0);
+                for (int i = 0; i < degree; i++) {
+                    structure[k++] = (int) (row[i] >>> 32);
+                    structure[k++] = (int) row[i];
+                }
+            }
+            return structure;
+        }
+    }
+}
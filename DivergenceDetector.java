@@ -0,0 +1,242 @@
+import java.math.BigInteger;
+import java.util.BitSet;
+
+final class DivergenceDetector {
+    public enum Kind { CYCLES, DIVERGES }
+
+    public static final class Verdict {
+        private final Kind kind;
+        private final long firstStep;
+        private final long step;
+        private final String message;
+
+        private Verdict(Kind kind, long firstStep, long step, String message) {
+            this.kind = kind;
+            this.firstStep = firstStep;
+            this.step = step;
+            this.message = message;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public long getFirstStep() {
+            return firstStep;
+        }
+
+        public long getStep() {
+            return step;
+        }
+
+        public String getLabel() {
+            return kind == Kind.CYCLES ? "cicla" : "diverge";
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+
+    static final int GROWTH_MARGIN_BITS = 16;
+
+    private ChipEngine engine;
+    private GraphIndex index;
+    private long[] keys;
+    private long[] terms;
+    private final BitSet window = new BitSet();
+    private long windowHash;
+    private long checkpointHash;
+    private long steps;
+    private int startBits;
+    private int growthLimitBits;
+    private long checkpointStep;
+    private long checkpointInterval;
+    private long[] checkpointDeficits;
+    private BigInteger[] wideCheckpointDeficits;
+    private BigInteger checkpointTotal;
+    private Verdict verdict;
+
+    public void attach(ChipEngine engine) {
+        this.engine = engine;
+        if (engine.getIndex() != index) {
+            index = engine.getIndex();
+            keys = new long[index.nodeCount()];
+            for (int id = 0; id < keys.length; id++) {
+                keys[id] = mix(0x9E3779B97F4A7C15L * (id + 1));
+            }
+            terms = new long[keys.length];
+            checkpointDeficits = null;
+        }
+        startBits = 0;
+        for (int id = 0; id < keys.length; id++) {
+            startBits = Math.max(startBits, engine.chipBitLength(id));
+        }
+        growthLimitBits = startBits + 2 * (32 - Integer.numberOfLeadingZeros(keys.length)) + GROWTH_MARGIN_BITS;
+        steps = 0;
+        verdict = null;
+        checkpointInterval = 1;
+        checkpoint();
+    }
+
+    public long getWindowHash() {
+        return windowHash;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    public Verdict onReflected(int id) {
+        update(id);
+        return advance(1, engine.chipBitLength(id));
+    }
+
+    public Verdict onReflected(int[] ids, int count) {
+        int bits = 0;
+        for (int i = 0; i < count; i++) {
+            update(ids[i]);
+            bits = Math.max(bits, engine.chipBitLength(ids[i]));
+        }
+        return advance(count, bits);
+    }
+
+    private void update(int id) {
+        if (!window.get(id)) {
+            window.set(id);
+            checkpointHash ^= wideCheckpointDeficits != null ? term(id, wideCheckpointDeficits[id]) : term(id, checkpointDeficits[id]);
+            terms[id] = 0;
+        }
+        refresh(id);
+        for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+            int target = index.outTarget(k);
+            if (window.get(target)) {
+                refresh(target);
+            }
+        }
+    }
+
+    private void refresh(int id) {
+        long updated = currentTerm(id);
+        windowHash ^= terms[id] ^ updated;
+        terms[id] = updated;
+    }
+
+    private Verdict advance(int count, int bits) {
+        steps += count;
+        if (verdict != null) {
+            return verdict;
+        }
+        if (windowHash == checkpointHash && windowMatchesCheckpoint()) {
+            long period = steps - checkpointStep;
+            BigInteger growth = totalChips().subtract(checkpointTotal);
+            verdict = new Verdict(Kind.CYCLES, checkpointStep, steps, "El juego no converge (cicla): los déficits de los " + window.cardinality()
+                    + " nodos reflejados desde el paso " + checkpointStep + " se repiten en el paso " + steps + ", así que las mismas " + period
+                    + " reflexiones se repiten sin fin y cada vuelta añade " + growth + " chips.");
+            return verdict;
+        }
+        if (bits >= growthLimitBits) {
+            verdict = new Verdict(Kind.DIVERGES, 0, steps, "El juego diverge: el chip más grande pasó de " + startBits + " a " + bits
+                    + " bits en " + steps + " reflexiones, más de lo que permite un grafo de tipo finito, sin que se repitiera ningún estado.");
+            return verdict;
+        }
+        if (steps - checkpointStep >= checkpointInterval) {
+            checkpointInterval <<= 1;
+            checkpoint();
+        }
+        return null;
+    }
+
+    private void checkpoint() {
+        int n = keys.length;
+        window.clear();
+        windowHash = 0;
+        checkpointHash = 0;
+        checkpointStep = steps;
+        checkpointTotal = totalChips();
+        wideCheckpointDeficits = null;
+        if (checkpointDeficits == null) {
+            checkpointDeficits = new long[n];
+        }
+        for (int id = 0; id < n; id++) {
+            if (index.isSpecial(id)) {
+                continue;
+            }
+            if (wideCheckpointDeficits == null) {
+                try {
+                    checkpointDeficits[id] = engine.getDeficitExact(id);
+                    continue;
+                } catch (ArithmeticException overflow) {
+                    wideCheckpointDeficits = new BigInteger[n];
+                    for (int earlier = 0; earlier < id; earlier++) {
+                        wideCheckpointDeficits[earlier] = BigInteger.valueOf(checkpointDeficits[earlier]);
+                    }
+                }
+            }
+            wideCheckpointDeficits[id] = engine.getDeficit(id);
+        }
+    }
+
+    private boolean windowMatchesCheckpoint() {
+        for (int id = window.nextSetBit(0); id >= 0; id = window.nextSetBit(id + 1)) {
+            if (wideCheckpointDeficits != null) {
+                if (!engine.getDeficit(id).equals(wideCheckpointDeficits[id])) {
+                    return false;
+                }
+                continue;
+            }
+            try {
+                if (engine.getDeficitExact(id) != checkpointDeficits[id]) {
+                    return false;
+                }
+            } catch (ArithmeticException overflow) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BigInteger totalChips() {
+        BigInteger total = BigInteger.ZERO;
+        for (int id = 0, n = keys.length; id < n; id++) {
+            if (!index.isSpecial(id)) {
+                total = total.add(engine.getChips(id));
+            }
+        }
+        return total;
+    }
+
+    private long currentTerm(int id) {
+        try {
+            return term(id, engine.getDeficitExact(id));
+        } catch (ArithmeticException overflow) {
+            return term(id, engine.getDeficit(id));
+        }
+    }
+
+    private long term(int id, BigInteger deficit) {
+        if (deficit.bitLength() < 64) {
+            return term(id, deficit.longValue());
+        }
+        return term(id, mix(deficit.longValue()) ^ deficit.hashCode() ^ ((long) deficit.bitLength() << 32));
+    }
+
+    private long term(int id, long deficit) {
+        return mix(keys[id] + deficit);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,519 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+final class DynkinDiagram {
+    public enum Family { A, B, C, D, E, F, G }
+
+    public static final class Solution {
+        private final List<String> types;
+        private final long steps;
+        private final BigInteger[] chips;
+
+        private Solution(List<String> types, long steps, BigInteger[] chips) {
+            this.types = types;
+            this.steps = steps;
+            this.chips = chips;
+        }
+
+        public List<String> getTypes() {
+            return types;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        public BigInteger getChips(int id) {
+            return chips[id];
+        }
+    }
+
+    private final Family family;
+    private final int[] nodes;
+    private final boolean[] shortRoot;
+
+    private DynkinDiagram(Family family, int[] nodes, boolean[] shortRoot) {
+        this.family = family;
+        this.nodes = nodes;
+        this.shortRoot = shortRoot;
+    }
+
+    public Family getFamily() {
+        return family;
+    }
+
+    public int getRank() {
+        return nodes.length;
+    }
+
+    public int getNode(int bourbakiIndex) {
+        return nodes[bourbakiIndex - 1];
+    }
+
+    public String getName() {
+        return family + "_" + nodes.length;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    public long positiveRootCount() {
+        long n = nodes.length;
+        switch (family) {
+            case A:
+                return n * (n + 1) / 2;
+            case B:
+            case C:
+                return n * n;
+            case D:
+                return n * (n - 1);
+            case E:
+                return n == 6 ? 36 : n == 7 ? 63 : 120;
+            case F:
+                return 24;
+            default:
+                return 6;
+        }
+    }
+
+    private int[] highestRoot(boolean ofShortRoots) {
+        int n = nodes.length;
+        int[] coefficients = new int[n];
+        switch (family) {
+            case A:
+                Arrays.fill(coefficients, 1);
+                break;
+            case B:
+                Arrays.fill(coefficients, ofShortRoots ? 1 : 2);
+                coefficients[0] = 1;
+                break;
+            case C:
+                Arrays.fill(coefficients, 2);
+                coefficients[n - 1] = 1;
+                if (ofShortRoots) {
+                    coefficients[0] = 1;
+                }
+                break;
+            case D:
+                Arrays.fill(coefficients, 2);
+                coefficients[0] = 1;
+                coefficients[n - 2] = 1;
+                coefficients[n - 1] = 1;
+                break;
+            case E:
+                int[] exceptional = n == 6 ? new int[] {1, 2, 2, 3, 2, 1}
+                        : n == 7 ? new int[] {2, 2, 3, 4, 3, 2, 1}
+                        : new int[] {2, 3, 4, 6, 5, 4, 3, 2};
+                System.arraycopy(exceptional, 0, coefficients, 0, n);
+                break;
+            case F:
+                System.arraycopy(ofShortRoots ? new int[] {1, 2, 3, 2} : new int[] {2, 3, 4, 2}, 0, coefficients, 0, 4);
+                break;
+            default:
+                System.arraycopy(ofShortRoots ? new int[] {2, 1} : new int[] {3, 2}, 0, coefficients, 0, 2);
+                break;
+        }
+        return coefficients;
+    }
+
+    private int lengthRatio() {
+        return family == Family.G ? 3 : 2;
+    }
+
+    private int oppositeNode(int position) {
+        int n = nodes.length;
+        if (family == Family.A) {
+            return n - 1 - position;
+        }
+        if (family == Family.D && n % 2 == 1 && position >= n - 2) {
+            return position == n - 2 ? n - 1 : n - 2;
+        }
+        if (family == Family.E && n == 6) {
+            int[] opposite = {5, 1, 4, 3, 2, 0};
+            return opposite[position];
+        }
+        return position;
+    }
+
+    public static Solution solve(GraphIndex index, BigInteger[] chips) {
+        int n = index.nodeCount();
+        BigInteger[] field = new BigInteger[n];
+        Arrays.fill(field, BigInteger.ZERO);
+        int start = -1;
+        for (int id = 0; id < n; id++) {
+            if (index.isSpecial(id)) {
+                for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                    int target = index.outTarget(k);
+                    if (!index.isSpecial(target)) {
+                        field[target] = field[target].add(chips[id].multiply(BigInteger.valueOf(index.outWeight(k))));
+                    }
+                }
+            } else if (chips[id].signum() != 0) {
+                if (start >= 0 || !chips[id].equals(BigInteger.ONE)) {
+                    return null;
+                }
+                start = id;
+            }
+        }
+        for (BigInteger value : field) {
+            if (value.signum() < 0) {
+                return null;
+            }
+        }
+        if (start >= 0 && nonZero(field)) {
+            return null;
+        }
+
+        BigInteger[] result = chips.clone();
+        List<String> types = new ArrayList<>();
+        boolean[] inDiagram = new boolean[n];
+        for (int id = 0; id < n; id++) {
+            inDiagram[id] = !index.isSpecial(id);
+        }
+        boolean[] visited = new boolean[n];
+        int[] scratch = new int[n];
+        if (start >= 0) {
+            DynkinDiagram diagram = recognize(index, component(index, start, inDiagram, visited), inDiagram, scratch);
+            if (diagram == null) {
+                return null;
+            }
+            types.add(diagram.getName());
+            int position = diagram.positionOf(start);
+            boolean fromShortRoot = diagram.shortRoot[position];
+            int[] root = diagram.highestRoot(fromShortRoot);
+            long height = 0;
+            for (int i = 0; i < root.length; i++) {
+                result[diagram.nodes[i]] = BigInteger.valueOf(root[i]);
+                height += !fromShortRoot && diagram.shortRoot[i] ? root[i] / diagram.lengthRatio() : root[i];
+            }
+            return new Solution(Collections.unmodifiableList(types), height - 1, result);
+        }
+
+        long steps = 0;
+        boolean[] fixed = new boolean[n];
+        boolean[] fixedVisited = new boolean[n];
+        for (int id = 0; id < n; id++) {
+            if (!inDiagram[id] || visited[id]) {
+                continue;
+            }
+            int[] members = component(index, id, inDiagram, visited);
+            boolean active = false;
+            for (int member : members) {
+                active |= field[member].signum() != 0;
+            }
+            if (!active) {
+                continue;
+            }
+            DynkinDiagram diagram = recognize(index, members, inDiagram, scratch);
+            if (diagram == null) {
+                return null;
+            }
+            types.add(diagram.getName());
+            BigInteger[] rightHandSide = new BigInteger[members.length];
+            for (int i = 0; i < members.length; i++) {
+                rightHandSide[i] = field[diagram.nodes[i]].add(field[diagram.nodes[diagram.oppositeNode(i)]]);
+            }
+            BigInteger[] solution = solveCartanSystem(index, diagram.nodes, inDiagram, rightHandSide, scratch);
+            for (int i = 0; i < members.length; i++) {
+                result[diagram.nodes[i]] = solution[i];
+            }
+
+            steps += diagram.positiveRootCount();
+            for (int member : members) {
+                fixed[member] = field[member].signum() == 0;
+            }
+            for (int member : members) {
+                if (fixed[member] && !fixedVisited[member]) {
+                    DynkinDiagram stabilizer = recognize(index, component(index, member, fixed, fixedVisited), fixed, scratch);
+                    if (stabilizer == null) {
+                        throw new IllegalStateException("Un subdiagrama de " + diagram.getName() + " no es de tipo finito.");
+                    }
+                    steps -= stabilizer.positiveRootCount();
+                }
+            }
+        }
+        return new Solution(Collections.unmodifiableList(types), steps, result);
+    }
+
+    private static boolean nonZero(BigInteger[] values) {
+        for (BigInteger value : values) {
+            if (value.signum() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int positionOf(int id) {
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == id) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("El nodo no pertenece al diagrama.");
+    }
+
+    static int[] component(GraphIndex index, int start, boolean[] included, boolean[] seen) {
+        int[] queue = new int[16];
+        int size = 0;
+        queue[size++] = start;
+        seen[start] = true;
+        for (int head = 0; head < size; head++) {
+            int id = queue[head];
+            for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                int target = index.outTarget(k);
+                if (included[target] && !seen[target]) {
+                    seen[target] = true;
+                    if (size == queue.length) {
+                        queue = Arrays.copyOf(queue, size * 2);
+                    }
+                    queue[size++] = target;
+                }
+            }
+        }
+        return Arrays.copyOf(queue, size);
+    }
+
+    static int weight(GraphIndex index, int source, int target) {
+        for (int k = index.outStart(source), end = index.outEnd(source); k < end; k++) {
+            if (index.outTarget(k) == target) {
+                return index.outWeight(k);
+            }
+        }
+        return 0;
+    }
+
+    static DynkinDiagram recognize(GraphIndex index, int[] members, boolean[] included, int[] degree) {
+        int m = members.length;
+        if (m == 1) {
+            return new DynkinDiagram(Family.A, members.clone(), new boolean[1]);
+        }
+        for (int id : members) {
+            degree[id] = 0;
+        }
+        int edges = 0;
+        int branch = -1;
+        int multipleSource = -1;
+        int multipleTarget = -1;
+        int multiplicity = 1;
+        for (int id : members) {
+            for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                int target = index.outTarget(k);
+                if (!included[target]) {
+                    continue;
+                }
+                if (target == id || ++degree[id] > 3) {
+                    return null;
+                }
+                int forward = index.outWeight(k);
+                int backward = weight(index, target, id);
+                int product = forward * backward;
+                if (backward == 0 || product > 3 || (product > 1 && forward != product && backward != product)) {
+                    return null;
+                }
+                if (id < target) {
+                    edges++;
+                    if (product > 1) {
+                        if (multiplicity > 1) {
+                            return null;
+                        }
+                        multiplicity = product;
+                        multipleSource = forward > 1 ? id : target;
+                        multipleTarget = forward > 1 ? target : id;
+                    }
+                }
+            }
+            if (degree[id] == 3) {
+                if (branch >= 0) {
+                    return null;
+                }
+                branch = id;
+            }
+        }
+        if (edges != m - 1) {
+            return null;
+        }
+
+        if (branch >= 0) {
+            if (multiplicity > 1) {
+                return null;
+            }
+            int[][] arms = new int[3][];
+            int arm = 0;
+            for (int k = index.outStart(branch), end = index.outEnd(branch); k < end; k++) {
+                if (included[index.outTarget(k)]) {
+                    arms[arm++] = walk(index, branch, index.outTarget(k), included, degree);
+                }
+            }
+            Arrays.sort(arms, (first, second) -> Integer.compare(first.length, second.length));
+            int[] ordered = new int[m];
+            if (arms[0].length == 1 && arms[1].length == 1) {
+                int position = 0;
+                for (int i = arms[2].length - 1; i >= 0; i--) {
+                    ordered[position++] = arms[2][i];
+                }
+                ordered[position++] = branch;
+                ordered[position++] = arms[0][0];
+                ordered[position] = arms[1][0];
+                return new DynkinDiagram(Family.D, ordered, new boolean[m]);
+            }
+            if (arms[0].length == 1 && arms[1].length == 2 && arms[2].length <= 4) {
+                ordered[0] = arms[1][1];
+                ordered[1] = arms[0][0];
+                ordered[2] = arms[1][0];
+                ordered[3] = branch;
+                for (int i = 0; i < arms[2].length; i++) {
+                    ordered[4 + i] = arms[2][i];
+                }
+                return new DynkinDiagram(Family.E, ordered, new boolean[m]);
+            }
+            return null;
+        }
+
+        int end = -1;
+        for (int id : members) {
+            if (degree[id] == 1) {
+                end = id;
+                break;
+            }
+        }
+        int[] path = walk(index, -1, end, included, degree);
+        if (multiplicity == 1) {
+            return new DynkinDiagram(Family.A, path, new boolean[m]);
+        }
+        if (multiplicity == 3) {
+            if (m != 2) {
+                return null;
+            }
+            return new DynkinDiagram(Family.G, new int[] {multipleTarget, multipleSource}, new boolean[] {true, false});
+        }
+
+        int at = 0;
+        while (path[at] != multipleSource && path[at] != multipleTarget) {
+            at++;
+        }
+        if (m == 2 ? path[0] != multipleSource : at == 0 || (m == 4 && at == 1 && path[1] != multipleSource)) {
+            path = reverse(path);
+            at = m - 2 - at;
+        }
+        boolean[] shortRoot = new boolean[m];
+        if (m == 4 && at == 1) {
+            shortRoot[2] = true;
+            shortRoot[3] = true;
+            return new DynkinDiagram(Family.F, path, shortRoot);
+        }
+        if (at != m - 2) {
+            return null;
+        }
+        if (path[m - 1] == multipleTarget) {
+            shortRoot[m - 1] = true;
+            return new DynkinDiagram(Family.B, path, shortRoot);
+        }
+        Arrays.fill(shortRoot, 0, m - 1, true);
+        return new DynkinDiagram(Family.C, path, shortRoot);
+    }
+
+    private static int[] reverse(int[] values) {
+        int[] reversed = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            reversed[i] = values[values.length - 1 - i];
+        }
+        return reversed;
+    }
+
+    private static int[] walk(GraphIndex index, int from, int first, boolean[] included, int[] degree) {
+        int[] path = new int[8];
+        int size = 0;
+        int previous = from;
+        int current = first;
+        while (current >= 0) {
+            if (size == path.length) {
+                path = Arrays.copyOf(path, size * 2);
+            }
+            path[size++] = current;
+            int next = -1;
+            if (degree[current] <= 2) {
+                for (int k = index.outStart(current), end = index.outEnd(current); k < end; k++) {
+                    int target = index.outTarget(k);
+                    if (included[target] && target != previous) {
+                        next = target;
+                        break;
+                    }
+                }
+            }
+            previous = current;
+            current = next;
+        }
+        return Arrays.copyOf(path, size);
+    }
+
+    static BigInteger[] solveCartanSystem(GraphIndex index, int[] nodes, boolean[] included, BigInteger[] rightHandSide, int[] position) {
+        int m = nodes.length;
+        for (int i = 0; i < m; i++) {
+            position[nodes[i]] = i;
+        }
+        int[] order = new int[m];
+        int[] parent = new int[m];
+        int size = 0;
+        boolean[] seen = new boolean[m];
+        order[size++] = 0;
+        parent[0] = -1;
+        seen[0] = true;
+        for (int head = 0; head < size; head++) {
+            int id = nodes[order[head]];
+            for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                int target = index.outTarget(k);
+                if (included[target] && !seen[position[target]]) {
+                    seen[position[target]] = true;
+                    parent[position[target]] = order[head];
+                    order[size++] = position[target];
+                }
+            }
+        }
+
+        BigInteger[] pivot = new BigInteger[m];
+        BigInteger[] product = new BigInteger[m];
+        BigInteger[] right = new BigInteger[m];
+        for (int i = 0; i < m; i++) {
+            pivot[i] = BigInteger.valueOf(2);
+            product[i] = BigInteger.ONE;
+            right[i] = rightHandSide[i];
+        }
+        for (int i = m - 1; i > 0; i--) {
+            int child = order[i];
+            int up = parent[child];
+            if (pivot[child].signum() <= 0) {
+                throw new IllegalStateException("La matriz de Cartan no es definida positiva.");
+            }
+            BigInteger toParent = BigInteger.valueOf(weight(index, nodes[child], nodes[up]));
+            BigInteger toChild = BigInteger.valueOf(weight(index, nodes[up], nodes[child]));
+            pivot[up] = pivot[up].multiply(pivot[child]).subtract(toParent.multiply(toChild).multiply(product[child]).multiply(product[up]));
+            right[up] = right[up].multiply(pivot[child]).add(toParent.multiply(right[child]).multiply(product[up]));
+            product[up] = product[up].multiply(pivot[child]);
+        }
+        if (pivot[order[0]].signum() <= 0) {
+            throw new IllegalStateException("La matriz de Cartan no es definida positiva.");
+        }
+
+        BigInteger[] solution = new BigInteger[m];
+        for (int i = 0; i < m; i++) {
+            int node = order[i];
+            BigInteger scaled = right[node];
+            if (i > 0) {
+                int up = parent[node];
+                scaled = scaled.add(product[node].multiply(BigInteger.valueOf(weight(index, nodes[up], nodes[node]))).multiply(solution[up]));
+            }
+            BigInteger[] quotient = scaled.divideAndRemainder(pivot[node]);
+            if (quotient[1].signum() != 0) {
+                throw new IllegalStateException("La solución del sistema de Cartan no es entera.");
+            }
+            solution[node] = quotient[0];
+        }
+        return solution;
+    }
+}
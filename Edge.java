@@ -0,0 +1,33 @@
+import java.util.Objects;
+
+class Edge {
+    public final String source;
+    public final String target;
+    public final int weight;
+
+    public Edge(String source, String target, int weight) {
+        this.source = source;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Edge edge = (Edge) o;
+        return weight == edge.weight &&
+               Objects.equals(source, edge.source) &&
+               Objects.equals(target, edge.target);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, target, weight);
+    }
+
+    @Override
+    public String toString() {
+        return source + "->" + target + ":" + weight;
+    }
+}
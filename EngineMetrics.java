@@ -0,0 +1,263 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+final class EngineMetrics implements EngineMetricsMBean {
+    public static final String OBJECT_NAME = "kostant:type=EngineMetrics";
+    static final int DEFAULT_SAMPLE_INTERVAL = 1024;
+    private static final int HISTORY_SIZE = 256;
+
+    private static volatile EngineMetrics global;
+
+    @Name("kostant.Run")
+    @Label("Partida de Kostant")
+    @Category("Kostant")
+    @Description("Una ejecución completa del juego hasta converger o alcanzar un límite.")
+    static final class RunEvent extends Event {
+        @Label("Motor")
+        String engine;
+
+        @Label("Nodos")
+        int nodes;
+
+        @Label("Pasos")
+        long steps;
+
+        @Label("Convergido")
+        boolean converged;
+
+        @Label("Nodos tristes al final")
+        int sadNodes;
+
+        @Label("Bits máximos de chips")
+        long maxChipBitLength;
+    }
+
+    @Name("kostant.Reflection")
+    @Label("Reflexión muestreada")
+    @Category("Kostant")
+    @Description("Una de cada N reflexiones, con el tamaño del conjunto de nodos tristes en ese momento.")
+    static final class ReflectionEvent extends Event {
+        @Label("Nodo")
+        String node;
+
+        @Label("Paso")
+        long step;
+
+        @Label("Nodos tristes")
+        int sadNodes;
+
+        @Label("Bits de chips")
+        int chipBitLength;
+    }
+
+    private final LongAdder reflections = new LongAdder();
+    private final LongAdder stateEvaluations = new LongAdder();
+    private final LongAdder neighborSumUpdates = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final LongAccumulator maxChipBitLength = new LongAccumulator(Math::max, 0);
+    private final long[] sadHistory = new long[HISTORY_SIZE];
+    private volatile int sadNodeCount;
+    private volatile int sampleInterval = Integer.getInteger("kostant.metrics.sampleInterval", DEFAULT_SAMPLE_INTERVAL);
+    private long sadHistoryCount;
+    private long rateWindowNanos = System.nanoTime();
+    private long rateWindowReflections;
+    private double lastRate;
+
+    public static EngineMetrics global() {
+        EngineMetrics current = global;
+        if (current == null) {
+            synchronized (EngineMetrics.class) {
+                current = global;
+                if (current == null) {
+                    current = new EngineMetrics();
+                    EngineMetrics registered = current;
+                    Thread registration = new Thread(() -> register(registered), "kostant-metrics-jmx");
+                    registration.setDaemon(true);
+                    registration.start();
+                    global = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static void register(EngineMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (JMException | SecurityException e) {
+            GameLog.log(GameLog.Level.WARN, "Advertencia: No se pudieron publicar las métricas por JMX: {}", e.getMessage());
+        }
+    }
+
+    void add(long reflectionCount, long evaluations, long sumUpdates, int bitLength) {
+        if (reflectionCount != 0) {
+            reflections.add(reflectionCount);
+        }
+        if (evaluations != 0) {
+            stateEvaluations.add(evaluations);
+        }
+        if (sumUpdates != 0) {
+            neighborSumUpdates.add(sumUpdates);
+        }
+        maxChipBitLength.accumulate(bitLength);
+    }
+
+    void recordSadNodeCount(int count) {
+        sadNodeCount = count;
+        synchronized (sadHistory) {
+            sadHistory[(int) (sadHistoryCount++ % HISTORY_SIZE)] = count;
+        }
+    }
+
+    void sampleReflection(ChipEngine engine, int id, long step) {
+        engine.drainMetrics(this);
+        int sad = engine.sadNodeCount();
+        recordSadNodeCount(sad);
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        ReflectionEvent event = new ReflectionEvent();
+        if (event.shouldCommit()) {
+            event.node = engine.getIndex().nodeName(id);
+            event.step = step;
+            event.sadNodes = sad;
+            event.chipBitLength = engine.getChips(id).bitLength();
+            event.commit();
+        }
+    }
+
+    RunEvent beginRun() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        RunEvent event = new RunEvent();
+        event.begin();
+        return event;
+    }
+
+    void endRun(RunEvent event, ChipEngine engine, String engineName, long steps, long elapsedNanos) {
+        engine.drainMetrics(this);
+        int sad = engine.sadNodeCount();
+        recordSadNodeCount(sad);
+        runs.increment();
+        runNanos.add(elapsedNanos);
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = engineName;
+            event.nodes = engine.getIndex().nodeCount();
+            event.steps = steps;
+            event.converged = sad == 0;
+            event.sadNodes = sad;
+            event.maxChipBitLength = engine.getMaxChipBitLength();
+            event.commit();
+        }
+    }
+
+    @Override
+    public long getReflections() {
+        return reflections.sum();
+    }
+
+    @Override
+    public synchronized double getReflectionsPerSecond() {
+        long now = System.nanoTime();
+        long total = reflections.sum();
+        long elapsed = now - rateWindowNanos;
+        if (elapsed >= 250_000_000L) {
+            lastRate = (total - rateWindowReflections) * 1e9 / elapsed;
+            rateWindowNanos = now;
+            rateWindowReflections = total;
+        }
+        return lastRate;
+    }
+
+    @Override
+    public long getStateEvaluations() {
+        return stateEvaluations.sum();
+    }
+
+    @Override
+    public long getNeighborSumUpdates() {
+        return neighborSumUpdates.sum();
+    }
+
+    @Override
+    public long getMaxChipBitLength() {
+        return maxChipBitLength.get();
+    }
+
+    @Override
+    public int getSadNodeCount() {
+        return sadNodeCount;
+    }
+
+    @Override
+    public long[] getSadNodeCountHistory() {
+        synchronized (sadHistory) {
+            int size = (int) Math.min(sadHistoryCount, HISTORY_SIZE);
+            long[] history = new long[size];
+            for (int i = 0; i < size; i++) {
+                history[i] = sadHistory[(int) ((sadHistoryCount - size + i) % HISTORY_SIZE)];
+            }
+            return history;
+        }
+    }
+
+    @Override
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    @Override
+    public double getTotalRunMillis() {
+        return runNanos.sum() / 1e6;
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override
+    public void setSampleInterval(int reflections) {
+        if (reflections < 1) {
+            throw new IllegalArgumentException("El intervalo de muestreo debe ser al menos 1 reflexión.");
+        }
+        sampleInterval = reflections;
+    }
+
+    @Override
+    public synchronized void reset() {
+        reflections.reset();
+        stateEvaluations.reset();
+        neighborSumUpdates.reset();
+        runs.reset();
+        runNanos.reset();
+        maxChipBitLength.reset();
+        synchronized (sadHistory) {
+            sadHistoryCount = 0;
+        }
+        sadNodeCount = 0;
+        rateWindowNanos = System.nanoTime();
+        rateWindowReflections = 0;
+        lastRate = 0;
+    }
+}
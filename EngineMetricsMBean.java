@@ -0,0 +1,25 @@
+public interface EngineMetricsMBean {
+    long getReflections();
+
+    double getReflectionsPerSecond();
+
+    long getStateEvaluations();
+
+    long getNeighborSumUpdates();
+
+    long getMaxChipBitLength();
+
+    int getSadNodeCount();
+
+    long[] getSadNodeCountHistory();
+
+    long getRuns();
+
+    double getTotalRunMillis();
+
+    int getSampleInterval();
+
+    void setSampleInterval(int reflections);
+
+    void reset();
+}
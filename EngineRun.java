@@ -0,0 +1,67 @@
+final class EngineRun {
+    private final int steps;
+    private final boolean converged;
+    private final long elapsedNanos;
+    private final DivergenceDetector.Verdict verdict;
+
+    private EngineRun(int steps, boolean converged, long elapsedNanos, DivergenceDetector.Verdict verdict) {
+        this.steps = steps;
+        this.converged = converged;
+        this.elapsedNanos = elapsedNanos;
+        this.verdict = verdict;
+    }
+
+    public static EngineRun play(ChipEngine engine, ReflectionScheduler scheduler, boolean divergenceCheck, int maxSteps, long timeLimitNanos, String engineName) {
+        EngineMetrics metrics = EngineMetrics.global();
+        EngineMetrics.RunEvent run = metrics.beginRun();
+        long start = System.nanoTime();
+        int steps = 0;
+        int untilSample = metrics.getSampleInterval();
+        if (scheduler == null) {
+            scheduler = ReflectionSchedulers.firstSad();
+        }
+        scheduler.attach(engine);
+        DivergenceDetector detector = null;
+        if (divergenceCheck) {
+            detector = new DivergenceDetector();
+            detector.attach(engine);
+        }
+        DivergenceDetector.Verdict verdict = null;
+        int id = scheduler.next();
+        while (id >= 0 && steps < maxSteps) {
+            if ((steps & 1023) == 0 && System.nanoTime() - start > timeLimitNanos) {
+                break;
+            }
+            engine.reflect(id);
+            steps++;
+            if (--untilSample == 0) {
+                metrics.sampleReflection(engine, id, steps);
+                untilSample = metrics.getSampleInterval();
+            }
+            if (detector != null && (verdict = detector.onReflected(id)) != null) {
+                break;
+            }
+            scheduler.onReflected(id);
+            id = scheduler.next();
+        }
+        long elapsed = System.nanoTime() - start;
+        metrics.endRun(run, engine, engineName, steps, elapsed);
+        return new EngineRun(steps, engine.nextSadNode(0) < 0, elapsed, verdict);
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public DivergenceDetector.Verdict getVerdict() {
+        return verdict;
+    }
+}
@@ -0,0 +1,293 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class FiniteTypeCheck {
+    public enum Type {
+        FINITE("finito"),
+        AFFINE("afín"),
+        INDEFINITE("indefinido"),
+        UNCLASSIFIED("sin clasificar");
+
+        private final String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static final class Verdict {
+        private final Type type;
+        private final String node;
+        private final int size;
+        private final String message;
+
+        private Verdict(Type type, String node, int size, String message) {
+            this.type = type;
+            this.node = node;
+            this.size = size;
+            this.message = message;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public String getNode() {
+            return node;
+        }
+
+        public int getComponentSize() {
+            return size;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+
+    private final GraphIndex index;
+    private final int[] componentOf;
+    private final int[] order;
+    private final int[] componentStart;
+    private final Type[] types;
+
+    private FiniteTypeCheck(GraphIndex index, int[] componentOf, int[] order, int[] componentStart, Type[] types) {
+        this.index = index;
+        this.componentOf = componentOf;
+        this.order = order;
+        this.componentStart = componentStart;
+        this.types = types;
+    }
+
+    public static FiniteTypeCheck analyze(GraphIndex index) {
+        int n = index.nodeCount();
+        int[] componentOf = new int[n];
+        Arrays.fill(componentOf, -1);
+        int[] order = new int[n];
+        int[] parent = new int[n];
+        long[] link = new long[n];
+        int[] stamp = new int[n];
+        int[] weightTo = new int[n];
+        int[] starts = new int[16];
+        Type[] types = new Type[16];
+        int components = 0;
+        int size = 0;
+        for (int root = 0; root < n; root++) {
+            if (index.isSpecial(root) || componentOf[root] >= 0) {
+                continue;
+            }
+            if (components + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                types = Arrays.copyOf(types, types.length * 2);
+            }
+            int start = size;
+            starts[components] = start;
+            componentOf[root] = components;
+            parent[root] = -1;
+            order[size++] = root;
+            boolean cartan = true;
+            boolean unitCycle = true;
+            long edges = 0;
+            for (int head = start; head < size; head++) {
+                int id = order[head];
+                int outgoing = 0;
+                for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                    int target = index.outTarget(k);
+                    if (!index.isSpecial(target)) {
+                        stamp[target] = id + 1;
+                        weightTo[target] = index.outWeight(k);
+                        outgoing++;
+                        cartan &= target != id;
+                    }
+                }
+                int degree = 0;
+                for (int k = index.inStart(id), end = index.inEnd(id); k < end; k++) {
+                    int source = index.inSource(k);
+                    if (index.isSpecial(source)) {
+                        continue;
+                    }
+                    if (stamp[source] != id + 1) {
+                        cartan = false;
+                    } else {
+                        degree++;
+                        int forward = weightTo[source];
+                        int backward = index.inWeight(k);
+                        cartan &= forward > 0 && backward > 0;
+                        unitCycle &= forward == 1 && backward == 1;
+                        if (componentOf[source] < 0) {
+                            componentOf[source] = components;
+                            parent[source] = head;
+                            link[source] = (long) forward * backward;
+                            order[size++] = source;
+                        }
+                    }
+                }
+                cartan &= degree == outgoing;
+                unitCycle &= degree == 2;
+                edges += degree;
+                for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                    int target = index.outTarget(k);
+                    if (!index.isSpecial(target) && componentOf[target] < 0) {
+                        componentOf[target] = components;
+                        order[size++] = target;
+                    }
+                }
+            }
+            int members = size - start;
+            edges /= 2;
+            if (!cartan) {
+                types[components] = Type.UNCLASSIFIED;
+            } else if (edges >= members) {
+                types[components] = unitCycle && edges == members ? Type.AFFINE : Type.INDEFINITE;
+            } else {
+                types[components] = classifyTree(order, start, size, parent, link);
+            }
+            components++;
+        }
+        starts[components] = size;
+        return new FiniteTypeCheck(index, componentOf, order, Arrays.copyOf(starts, components + 1), Arrays.copyOf(types, components));
+    }
+
+    public GraphIndex getIndex() {
+        return index;
+    }
+
+    public int componentCount() {
+        return types.length;
+    }
+
+    public int componentOf(int id) {
+        return componentOf[id];
+    }
+
+    public int componentSize(int component) {
+        return componentStart[component + 1] - componentStart[component];
+    }
+
+    public Type getType(int component) {
+        return types[component];
+    }
+
+    public Type getType() {
+        Type worst = Type.FINITE;
+        for (Type type : types) {
+            if (type == Type.INDEFINITE || (type == Type.AFFINE && worst != Type.INDEFINITE) || (type == Type.UNCLASSIFIED && worst == Type.FINITE)) {
+                worst = type;
+            }
+        }
+        return worst;
+    }
+
+    public boolean isFiniteType() {
+        return getType() == Type.FINITE;
+    }
+
+    public String describe() {
+        int n = index.nodeCount();
+        boolean[] included = new boolean[n];
+        int[] degree = new int[n];
+        List<String> parts = new ArrayList<>();
+        for (int component = 0; component < types.length; component++) {
+            int first = order[componentStart[component]];
+            if (types[component] != Type.FINITE) {
+                parts.add(types[component].getLabel() + " en '" + index.nodeName(first) + "' (" + componentSize(component) + " nodos)");
+                continue;
+            }
+            int[] members = Arrays.copyOfRange(order, componentStart[component], componentStart[component + 1]);
+            for (int member : members) {
+                included[member] = true;
+            }
+            DynkinDiagram diagram = DynkinDiagram.recognize(index, members, included, degree);
+            parts.add(diagram != null ? diagram.getName() : types[component].getLabel() + " en '" + index.nodeName(first) + "' (" + members.length + " nodos)");
+        }
+        return "tipo " + getType().getLabel() + (parts.isEmpty() ? "" : ": " + String.join(" + ", parts));
+    }
+
+    public Verdict verdictFor(ChipEngine engine) {
+        if (engine.getIndex() != index) {
+            throw new IllegalArgumentException("El motor de chips no corresponde al grafo analizado.");
+        }
+        int n = index.nodeCount();
+        boolean[] excluded = new boolean[types.length];
+        boolean[] sad = new boolean[types.length];
+        for (int id = 0; id < n; id++) {
+            if (index.isSpecial(id)) {
+                int sign = engine.getChips(id).signum();
+                for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                    int target = index.outTarget(k);
+                    if (!index.isSpecial(target) && sign * Integer.signum(index.outWeight(k)) < 0) {
+                        excluded[componentOf[target]] = true;
+                    }
+                }
+            } else if (engine.getChips(id).signum() < 0) {
+                excluded[componentOf[id]] = true;
+            }
+        }
+        for (int id = engine.nextSadNode(0); id >= 0; id = engine.nextSadNode(id + 1)) {
+            sad[componentOf[id]] = true;
+        }
+        for (int component = 0; component < types.length; component++) {
+            Type type = types[component];
+            if ((type == Type.AFFINE || type == Type.INDEFINITE) && sad[component] && !excluded[component]) {
+                String node = index.nodeName(order[componentStart[component]]);
+                int size = componentSize(component);
+                String reason = type == Type.AFFINE
+                        ? "su matriz de Cartan es semidefinida positiva pero singular, los únicos estados sin nodos tristes son múltiplos de la raíz imaginaria δ sin nodos especiales, y ninguna reflexión llega a ellos"
+                        : "su matriz de Cartan no es semidefinida positiva, así que ningún estado no nulo con chips no negativos queda sin nodos tristes";
+                return new Verdict(type, node, size, "El juego no terminará: la componente del nodo '" + node + "' (" + size + " nodos) es de tipo "
+                        + type.getLabel() + "; " + reason + ".");
+            }
+        }
+        return null;
+    }
+
+    private static Type classifyTree(int[] order, int start, int end, int[] parent, long[] link) {
+        int m = end - start;
+        long[] pivot = new long[m];
+        long[] product = new long[m];
+        Arrays.fill(pivot, 2);
+        Arrays.fill(product, 1);
+        try {
+            for (int child = m - 1; child > 0; child--) {
+                int up = parent[order[start + child]] - start;
+                long folded = Math.multiplyExact(Math.multiplyExact(link[order[start + child]], product[child]), product[up]);
+                pivot[up] = Math.subtractExact(Math.multiplyExact(pivot[up], pivot[child]), folded);
+                product[up] = Math.multiplyExact(product[up], pivot[child]);
+                if (pivot[up] <= 0) {
+                    return child == 1 && pivot[up] == 0 ? Type.AFFINE : Type.INDEFINITE;
+                }
+            }
+            return Type.FINITE;
+        } catch (ArithmeticException overflow) {
+            return classifyTreeExact(order, start, end, parent, link);
+        }
+    }
+
+    private static Type classifyTreeExact(int[] order, int start, int end, int[] parent, long[] link) {
+        int m = end - start;
+        BigInteger[] pivot = new BigInteger[m];
+        BigInteger[] product = new BigInteger[m];
+        Arrays.fill(pivot, BigInteger.valueOf(2));
+        Arrays.fill(product, BigInteger.ONE);
+        for (int child = m - 1; child > 0; child--) {
+            int up = parent[order[start + child]] - start;
+            pivot[up] = pivot[up].multiply(pivot[child]).subtract(BigInteger.valueOf(link[order[start + child]]).multiply(product[child]).multiply(product[up]));
+            product[up] = product[up].multiply(pivot[child]);
+            if (pivot[up].signum() <= 0) {
+                return child == 1 && pivot[up].signum() == 0 ? Type.AFFINE : Type.INDEFINITE;
+            }
+        }
+        return Type.FINITE;
+    }
+}
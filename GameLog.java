@@ -0,0 +1,199 @@
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+final class GameLog {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    public interface Sink {
+        void write(Level level, String message);
+    }
+
+    public static final Sink CONSOLE = (level, message) -> {
+        if (level == Level.ERROR) {
+            System.err.println(message);
+        } else {
+            System.out.println(message);
+        }
+    };
+
+    private static final int CAPACITY = 1 << 13;
+    private static final int MASK = CAPACITY - 1;
+
+    private static final class Slot {
+        volatile long sequence;
+        Level level;
+        String template;
+        int argumentCount;
+        Object first;
+        Object second;
+        Object third;
+    }
+
+    private static final Slot[] RING = new Slot[CAPACITY];
+    private static final AtomicLong TAIL = new AtomicLong();
+    private static volatile long head;
+    private static volatile boolean consumerWaiting;
+    private static volatile Thread consumer;
+    private static volatile Sink sink = CONSOLE;
+    private static volatile int threshold = Level.INFO.ordinal();
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            RING[i] = new Slot();
+            RING[i].sequence = i;
+        }
+        String configured = System.getProperty("kostant.log");
+        if (configured != null) {
+            try {
+                setLevel(parseLevel(configured));
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+
+    private GameLog() {
+    }
+
+    public static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nivel de registro desconocido '" + name + "'. Use DEBUG, INFO, WARN, ERROR u OFF.");
+        }
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    public static Level getLevel() {
+        return Level.values()[threshold];
+    }
+
+    public static void setSink(Sink newSink) {
+        if (newSink == null) {
+            throw new IllegalArgumentException("El destino del registro no puede ser nulo.");
+        }
+        sink = newSink;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold && level != Level.OFF;
+    }
+
+    public static void log(Level level, String template) {
+        if (isEnabled(level)) {
+            publish(level, template, 0, null, null, null);
+        }
+    }
+
+    public static void log(Level level, String template, Object first) {
+        if (isEnabled(level)) {
+            publish(level, template, 1, first, null, null);
+        }
+    }
+
+    public static void log(Level level, String template, Object first, Object second) {
+        if (isEnabled(level)) {
+            publish(level, template, 2, first, second, null);
+        }
+    }
+
+    public static void log(Level level, String template, Object first, Object second, Object third) {
+        if (isEnabled(level)) {
+            publish(level, template, 3, first, second, third);
+        }
+    }
+
+    public static void flush() {
+        Thread current = consumer;
+        if (current == null || current == Thread.currentThread()) {
+            return;
+        }
+        long target = TAIL.get();
+        while (head < target && current.isAlive()) {
+            LockSupport.unpark(current);
+            LockSupport.parkNanos(100_000L);
+        }
+    }
+
+    private static void publish(Level level, String template, int argumentCount, Object first, Object second, Object third) {
+        Thread current = consumer;
+        if (current == null) {
+            current = startConsumer();
+        }
+        long position = TAIL.getAndIncrement();
+        Slot slot = RING[(int) position & MASK];
+        while (slot.sequence != position) {
+            LockSupport.unpark(current);
+            LockSupport.parkNanos(10_000L);
+        }
+        slot.level = level;
+        slot.template = template;
+        slot.argumentCount = argumentCount;
+        slot.first = first;
+        slot.second = second;
+        slot.third = third;
+        slot.sequence = position + 1;
+        if (consumerWaiting) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    private static synchronized Thread startConsumer() {
+        if (consumer == null) {
+            Thread thread = new Thread(GameLog::drain, "kostant-log");
+            thread.setDaemon(true);
+            thread.start();
+            consumer = thread;
+            Runtime.getRuntime().addShutdownHook(new Thread(GameLog::flush, "kostant-log-flush"));
+        }
+        return consumer;
+    }
+
+    private static void drain() {
+        long next = 0;
+        while (true) {
+            Slot slot = RING[(int) next & MASK];
+            if (slot.sequence != next + 1) {
+                consumerWaiting = true;
+                if (slot.sequence != next + 1) {
+                    LockSupport.park();
+                }
+                consumerWaiting = false;
+                continue;
+            }
+            Level level = slot.level;
+            String message = format(slot.template, slot.argumentCount, slot.first, slot.second, slot.third);
+            slot.template = null;
+            slot.first = null;
+            slot.second = null;
+            slot.third = null;
+            slot.sequence = next + CAPACITY;
+            try {
+                sink.write(level, message);
+            } catch (RuntimeException e) {
+                System.err.println("Error escribiendo el registro: " + e.getMessage());
+            }
+            head = ++next;
+        }
+    }
+
+    static String format(String template, int argumentCount, Object first, Object second, Object third) {
+        if (argumentCount == 0) {
+            return template;
+        }
+        StringBuilder message = new StringBuilder(template.length() + 32);
+        int argument = 0;
+        int from = 0;
+        for (int at = template.indexOf("{}"); at >= 0 && argument < argumentCount; at = template.indexOf("{}", from)) {
+            message.append(template, from, at);
+            message.append(argument == 0 ? first : argument == 1 ? second : third);
+            argument++;
+            from = at + 2;
+        }
+        return message.append(template, from, template.length()).toString();
+    }
+}
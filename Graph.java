@@ -0,0 +1,357 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+class Graph {
+    private final Map<String, BigInteger> nodesChips;
+    private final Map<String, Map<String, Integer>> allDirectedEdges;
+    private final Map<String, Map<String, Integer>> incomingEdges;
+    private final Set<Edge> explicitEdges;
+    private final Map<String, Map<String, Edge>> explicitEdgeIndex;
+    private final Set<String> specialNodesLogicalNames;
+    private volatile GraphIndex index;
+    private final AtomicLong chipsVersion = new AtomicLong();
+    private final List<Runnable> pendingChipsFlushers = new CopyOnWriteArrayList<>();
+
+    public Graph() {
+        this.nodesChips = new ConcurrentHashMap<>();
+        this.allDirectedEdges = new ConcurrentHashMap<>();
+        this.incomingEdges = new ConcurrentHashMap<>();
+        this.explicitEdges = ConcurrentHashMap.newKeySet();
+        this.explicitEdgeIndex = new ConcurrentHashMap<>();
+        this.specialNodesLogicalNames = ConcurrentHashMap.newKeySet();
+    }
+
+    void addPendingChipsFlusher(Runnable flusher) {
+        pendingChipsFlushers.add(flusher);
+    }
+
+    private void flushPendingChips() {
+        for (Runnable flusher : pendingChipsFlushers) {
+            flusher.run();
+        }
+    }
+
+    public void addNode(String nodeName) {
+        flushPendingChips();
+        if (!nodesChips.containsKey(nodeName)) {
+            nodesChips.put(nodeName, BigInteger.ZERO);
+            allDirectedEdges.put(nodeName, new ConcurrentHashMap<>());
+            incomingEdges.put(nodeName, new ConcurrentHashMap<>());
+            index = null;
+            GameLog.log(GameLog.Level.INFO, "Nodo '{}' añadido al grafo lógico.", nodeName);
+        } else {
+            GameLog.log(GameLog.Level.WARN, "Advertencia: El nodo '{}' ya existe en el grafo lógico.", nodeName);
+        }
+    }
+
+    public String addSpecialNode(String targetNodeLogicalName) {
+        flushPendingChips();
+        if (!nodesChips.containsKey(targetNodeLogicalName)) {
+            throw new IllegalArgumentException("El nodo destino '" + targetNodeLogicalName + "' no existe en el grafo.");
+        }
+        
+        String newSpecialNodeLogicalName = targetNodeLogicalName + "'"; 
+
+        if (nodesChips.containsKey(newSpecialNodeLogicalName)) {
+            throw new IllegalStateException("Ya existe un nodo especial asociado a '" + newSpecialNodeLogicalName + "'.");
+        }
+        
+        specialNodesLogicalNames.add(newSpecialNodeLogicalName);
+        nodesChips.put(newSpecialNodeLogicalName, BigInteger.ONE);
+        allDirectedEdges.put(newSpecialNodeLogicalName, new ConcurrentHashMap<>());
+        incomingEdges.put(newSpecialNodeLogicalName, new ConcurrentHashMap<>());
+
+        addDirectedEdgeInternal(newSpecialNodeLogicalName, targetNodeLogicalName, 1, true); 
+        GameLog.log(GameLog.Level.INFO, "Nodo especial '{}' añadido, conectado directamente a '{}'.", newSpecialNodeLogicalName, targetNodeLogicalName);
+        return newSpecialNodeLogicalName;
+    }
+
+    private void addDirectedEdgeInternal(String source, String target, int weight, boolean isExplicit) {
+        flushPendingChips();
+        if (!nodesChips.containsKey(source) || !nodesChips.containsKey(target)) {
+            throw new IllegalArgumentException("Error: Ambos nodos (origen y destino) deben existir.");
+        }
+        if (source.equals(target)) {
+            GameLog.log(GameLog.Level.WARN, "Advertencia: No se permiten bucles (aristas a sí mismo).");
+            return;
+        }
+
+        putEdge(source, target, weight);
+        index = null;
+
+        if (isExplicit) {
+            putExplicitEdge(new Edge(source, target, weight));
+        }
+    }
+
+    private void putEdge(String source, String target, int weight) {
+        allDirectedEdges.computeIfAbsent(source, k -> new ConcurrentHashMap<>()).put(target, weight);
+        incomingEdges.computeIfAbsent(target, k -> new ConcurrentHashMap<>()).put(source, weight);
+    }
+
+    private void putExplicitEdge(Edge edge) {
+        Edge previous = explicitEdgeIndex.computeIfAbsent(edge.source, k -> new ConcurrentHashMap<>()).put(edge.target, edge);
+        if (previous != null) {
+            explicitEdges.remove(previous);
+        }
+        explicitEdges.add(edge);
+    }
+
+    private void removeExplicitEdge(String source, String target) {
+        Map<String, Edge> targets = explicitEdgeIndex.get(source);
+        Edge previous = targets == null ? null : targets.remove(target);
+        if (previous != null) {
+            explicitEdges.remove(previous);
+        }
+    }
+
+    public Edge getExplicitEdge(String source, String target) {
+        Map<String, Edge> targets = explicitEdgeIndex.get(source);
+        return targets == null ? null : targets.get(target);
+    }
+
+    public void addDirectedEdge(String source, String target, int weight) {
+        if (isSpecialNode(target)) {
+             throw new IllegalArgumentException("No se pueden añadir aristas dirigidas hacia un nodo especial con este método. Los nodos especiales solo tienen una arista saliente hacia su nodo base.");
+        }
+        if (isSpecialNode(source) && !target.equals(getSpecialNodeConnectedTarget(source))) {
+            throw new IllegalArgumentException("Un nodo especial solo puede tener una arista saliente hacia su nodo base.");
+        }
+
+        addDirectedEdgeInternal(source, target, weight, true);
+
+        if (getExplicitEdge(target, source) == null) {
+            addDirectedEdgeInternal(target, source, 1, false);
+            if (GameLog.isEnabled(GameLog.Level.INFO)) {
+                GameLog.log(GameLog.Level.INFO, "Arista dirigida '{}' -> '{}' con peso {} añadida. Inversa implícita (peso 1) también considerada.", source, target, weight);
+            }
+        } else {
+            if (GameLog.isEnabled(GameLog.Level.INFO)) {
+                GameLog.log(GameLog.Level.INFO, "Arista dirigida '{}' -> '{}' con peso {} añadida. La inversa ya existe explícitamente.", source, target, weight);
+            }
+        }
+    }
+
+    public void addUndirectedEdge(String node1, String node2) {
+        if (isSpecialNode(node1) || isSpecialNode(node2)) {
+            throw new IllegalArgumentException("No se pueden añadir aristas no dirigidas hacia/desde nodos especiales con este método.");
+        }
+        addDirectedEdge(node1, node2, 1);
+        addDirectedEdge(node2, node1, 1);
+        GameLog.log(GameLog.Level.INFO, "Arista no dirigida añadida entre '{}' y '{}'.", node1, node2);
+    }
+
+    void importBulk(Set<String> nodes, Map<String, Map<String, Integer>> explicitBySource, List<String> specialTargets) {
+        flushPendingChips();
+        for (String node : nodes) {
+            if (isSpecialNode(node)) {
+                throw new IllegalArgumentException("El nodo '" + node + "' ya existe como nodo especial.");
+            }
+        }
+        Set<String> newSpecialNodes = new HashSet<>();
+        for (String target : specialTargets) {
+            String specialNode = target + "'";
+            if (!nodes.contains(target) && !nodesChips.containsKey(target)) {
+                throw new IllegalArgumentException("El nodo destino '" + target + "' no existe en el grafo.");
+            }
+            if (nodesChips.containsKey(specialNode) || nodes.contains(specialNode) || !newSpecialNodes.add(specialNode)) {
+                throw new IllegalStateException("Ya existe un nodo especial asociado a '" + specialNode + "'.");
+            }
+        }
+        for (Map.Entry<String, Map<String, Integer>> entry : explicitBySource.entrySet()) {
+            String source = entry.getKey();
+            for (String target : entry.getValue().keySet()) {
+                for (String endpoint : new String[] {source, target}) {
+                    if (isSpecialNode(endpoint) || newSpecialNodes.contains(endpoint)) {
+                        throw new IllegalArgumentException("No se pueden añadir aristas hacia/desde el nodo especial '" + endpoint + "'.");
+                    }
+                    if (!nodes.contains(endpoint) && !nodesChips.containsKey(endpoint)) {
+                        throw new IllegalArgumentException("Error: Ambos nodos (origen y destino) deben existir ('" + source + "' -> '" + target + "').");
+                    }
+                }
+            }
+        }
+
+        for (String node : nodes) {
+            if (nodesChips.putIfAbsent(node, BigInteger.ZERO) == null) {
+                allDirectedEdges.put(node, new ConcurrentHashMap<>());
+                incomingEdges.put(node, new ConcurrentHashMap<>());
+            }
+        }
+
+        int edges = 0;
+        int loops = 0;
+        for (Map.Entry<String, Map<String, Integer>> entry : explicitBySource.entrySet()) {
+            String source = entry.getKey();
+            for (Map.Entry<String, Integer> edge : entry.getValue().entrySet()) {
+                if (source.equals(edge.getKey())) {
+                    loops++;
+                    continue;
+                }
+                putEdge(source, edge.getKey(), edge.getValue());
+                putExplicitEdge(new Edge(source, edge.getKey(), edge.getValue()));
+                edges++;
+            }
+        }
+        for (Map.Entry<String, Map<String, Integer>> entry : explicitBySource.entrySet()) {
+            String source = entry.getKey();
+            for (String target : entry.getValue().keySet()) {
+                if (!source.equals(target) && getExplicitEdge(target, source) == null) {
+                    putEdge(target, source, 1);
+                }
+            }
+        }
+
+        for (String target : specialTargets) {
+            String specialNode = target + "'";
+            specialNodesLogicalNames.add(specialNode);
+            nodesChips.put(specialNode, BigInteger.ONE);
+            allDirectedEdges.put(specialNode, new ConcurrentHashMap<>());
+            incomingEdges.put(specialNode, new ConcurrentHashMap<>());
+            putEdge(specialNode, target, 1);
+            putExplicitEdge(new Edge(specialNode, target, 1));
+        }
+        index = null;
+
+        if (GameLog.isEnabled(GameLog.Level.INFO)) {
+            GameLog.log(GameLog.Level.INFO, "Importación masiva: {} nodos, {} aristas explícitas y {} nodos especiales añadidos al grafo lógico.", nodes.size(), edges, specialTargets.size());
+        }
+        if (loops > 0) {
+            if (GameLog.isEnabled(GameLog.Level.WARN)) {
+                GameLog.log(GameLog.Level.WARN, "Advertencia: Se ignoraron {} bucles (aristas a sí mismo).", loops);
+            }
+        }
+    }
+
+    public BigInteger getChips(String nodeName) {
+        return nodesChips.getOrDefault(nodeName, BigInteger.ZERO);
+    }
+
+    public void setChips(String nodeName, BigInteger chips) {
+        flushPendingChips();
+        writeChips(nodeName, chips);
+    }
+
+    void writeChips(String nodeName, BigInteger chips) {
+        if (nodesChips.containsKey(nodeName)) {
+            nodesChips.put(nodeName, chips);
+            chipsVersion.incrementAndGet();
+        } else {
+            GameLog.log(GameLog.Level.WARN, "Error: No se pueden establecer chips para un nodo inexistente: '{}'.", nodeName);
+        }
+    }
+
+    public Map<String, Integer> getIncomingEdgesWithWeights(String nodeName) {
+        return Collections.unmodifiableMap(incomingEdges.getOrDefault(nodeName, Collections.emptyMap()));
+    }
+
+    public long getChipsVersion() {
+        return chipsVersion.get();
+    }
+
+    public GraphIndex getIndex() {
+        GraphIndex current = index;
+        if (current == null) {
+            current = GraphIndex.build(nodesChips.keySet(), allDirectedEdges, specialNodesLogicalNames);
+            index = current;
+        }
+        return current;
+    }
+
+    public int getEdgeWeight(String source, String target) {
+        return allDirectedEdges.getOrDefault(source, Collections.emptyMap()).getOrDefault(target, 0);
+    }
+
+    public boolean containsNode(String nodeName) {
+        return nodeName != null && nodesChips.containsKey(nodeName);
+    }
+
+    public List<String> getAllNodes() {
+        return new ArrayList<>(nodesChips.keySet());
+    }
+
+    public Set<Edge> getExplicitEdges() {
+        return Collections.unmodifiableSet(explicitEdges);
+    }
+
+    public void clear() {
+        flushPendingChips();
+        nodesChips.clear();
+        allDirectedEdges.clear();
+        incomingEdges.clear();
+        explicitEdges.clear();
+        explicitEdgeIndex.clear();
+        specialNodesLogicalNames.clear();
+        index = null;
+        GameLog.log(GameLog.Level.INFO, "Grafo lógico limpiado.");
+    }
+
+    public boolean isSpecialNode(String nodeId) {
+        return specialNodesLogicalNames.contains(nodeId);
+    }
+
+    public Set<String> getSpecialNodesLogicalNames() {
+        return Collections.unmodifiableSet(specialNodesLogicalNames);
+    }
+
+    public String getSpecialNodeConnectedTarget(String specialNodeId) {
+        if (!isSpecialNode(specialNodeId)) {
+            return null;
+        }
+        Map<String, Integer> targets = allDirectedEdges.get(specialNodeId);
+        if (targets != null && !targets.isEmpty()) {
+            return targets.keySet().iterator().next();
+        }
+        return null;
+    }
+
+    public void removeNode(String nodeName) {
+        flushPendingChips();
+        if (!nodesChips.containsKey(nodeName)) {
+            GameLog.log(GameLog.Level.WARN, "Advertencia: El nodo '{}' no existe para ser eliminado.", nodeName);
+            return;
+        }
+
+        if (!isSpecialNode(nodeName)) {
+            String associatedSpecialNode = nodeName + "'";
+            if (isSpecialNode(associatedSpecialNode)) {
+                removeNode(associatedSpecialNode);
+            }
+        }
+        
+        Map<String, Integer> outgoing = allDirectedEdges.remove(nodeName);
+        for (String target : outgoing.keySet()) {
+            Map<String, Integer> targetIncoming = incomingEdges.get(target);
+            if (targetIncoming != null) {
+                targetIncoming.remove(nodeName);
+            }
+        }
+        for (String source : incomingEdges.remove(nodeName).keySet()) {
+            Map<String, Integer> sourceOutgoing = allDirectedEdges.get(source);
+            if (sourceOutgoing != null) {
+                sourceOutgoing.remove(nodeName);
+            }
+            removeExplicitEdge(source, nodeName);
+        }
+        Map<String, Edge> explicitOutgoing = explicitEdgeIndex.remove(nodeName);
+        if (explicitOutgoing != null) {
+            for (Edge edge : explicitOutgoing.values()) {
+                explicitEdges.remove(edge);
+            }
+        }
+
+        nodesChips.remove(nodeName);
+        specialNodesLogicalNames.remove(nodeName);
+        index = null;
+
+        GameLog.log(GameLog.Level.INFO, "Nodo '{}' y sus aristas incidentes eliminados del grafo lógico.", nodeName);
+    }
+}
@@ -0,0 +1,416 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+final class MappedGraphIndex extends GraphIndex {
+    private final int nodeCount;
+    private final IntBuffer outOffsets;
+    private final IntBuffer outTargets;
+    private final IntBuffer outWeights;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inSources;
+    private final IntBuffer inWeights;
+    private final LongBuffer special;
+    private final IntBuffer nameOffsets;
+    private final ByteBuffer nameBytes;
+    private volatile Map<String, Integer> nodeIds;
+
+    MappedGraphIndex(int nodeCount, IntBuffer outOffsets, IntBuffer outTargets, IntBuffer outWeights, IntBuffer inOffsets, IntBuffer inSources, IntBuffer inWeights, LongBuffer special, IntBuffer nameOffsets, ByteBuffer nameBytes) {
+        this.nodeCount = nodeCount;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inWeights = inWeights;
+        this.special = special;
+        this.nameOffsets = nameOffsets;
+        this.nameBytes = nameBytes;
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int nodeId(String nodeName) {
+        if (nameOffsets == null) {
+            try {
+                int id = Integer.parseInt(nodeName) - 1;
+                return id >= 0 && id < nodeCount && nodeName.equals(String.valueOf(id + 1)) ? id : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        Map<String, Integer> ids = nodeIds;
+        if (ids == null) {
+            ids = new HashMap<>(nodeCount * 2);
+            for (int id = 0; id < nodeCount; id++) {
+                ids.put(nodeName(id), id);
+            }
+            nodeIds = ids;
+        }
+        Integer id = ids.get(nodeName);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public String nodeName(int id) {
+        if (nameOffsets == null) {
+            return String.valueOf(id + 1);
+        }
+        int start = nameOffsets.get(id);
+        byte[] bytes = new byte[nameOffsets.get(id + 1) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = nameBytes.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean isSpecial(int id) {
+        return (special.get(id >>> 6) & (1L << id)) != 0;
+    }
+
+    @Override
+    public int inStart(int id) {
+        return inOffsets.get(id);
+    }
+
+    @Override
+    public int inEnd(int id) {
+        return inOffsets.get(id + 1);
+    }
+
+    @Override
+    public int inSource(int k) {
+        return inSources.get(k);
+    }
+
+    @Override
+    public int inWeight(int k) {
+        return inWeights.get(k);
+    }
+
+    @Override
+    public int outStart(int id) {
+        return outOffsets.get(id);
+    }
+
+    @Override
+    public int outEnd(int id) {
+        return outOffsets.get(id + 1);
+    }
+
+    @Override
+    public int outTarget(int k) {
+        return outTargets.get(k);
+    }
+
+    @Override
+    public int outWeight(int k) {
+        return outWeights.get(k);
+    }
+}
+
+final class GraphFile implements Closeable {
+    static final int MAGIC = 0x4B475246;
+    static final int VERSION = 1;
+    static final int HAS_CHIPS = 1;
+    static final int HAS_POSITIONS = 2;
+    static final int HAS_NAMES = 4;
+
+    private static final int OUT_OFFSETS = 0;
+    private static final int OUT_TARGETS = 1;
+    private static final int OUT_WEIGHTS = 2;
+    private static final int IN_OFFSETS = 3;
+    private static final int IN_SOURCES = 4;
+    private static final int IN_WEIGHTS = 5;
+    private static final int SPECIAL = 6;
+    private static final int CHIPS = 7;
+    private static final int POSITIONS = 8;
+    private static final int NAME_OFFSETS = 9;
+    private static final int NAME_BYTES = 10;
+    private static final int SECTION_COUNT = 11;
+    private static final int HEADER_SIZE = 24 + 16 * SECTION_COUNT;
+
+    private final FileChannel channel;
+    private final MappedGraphIndex index;
+    private final LongBuffer chips;
+    private final IntBuffer positions;
+
+    private GraphFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            throw new IOException("El archivo es demasiado pequeño para ser un grafo binario.");
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("El archivo no es un grafo binario del juego de Kostant.");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Versión de grafo binario no soportada: " + header.getInt(4) + ".");
+        }
+        int flags = header.getInt(8);
+        int n = header.getInt(12);
+        int m = header.getInt(16);
+        if (n < 0 || m < 0) {
+            throw new IOException("La cabecera indica " + n + " nodos y " + m + " aristas.");
+        }
+
+        ByteBuffer[] sections = new ByteBuffer[SECTION_COUNT];
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            long offset = header.getLong(24 + 16 * section);
+            long length = header.getLong(32 + 16 * section);
+            if (length == 0) {
+                continue;
+            }
+            if (offset < HEADER_SIZE || length < 0 || offset + length > size || length > Integer.MAX_VALUE) {
+                throw new IOException("Sección " + section + " fuera de los límites del archivo.");
+            }
+            sections[section] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        IntBuffer outOffsets = ints(sections[OUT_OFFSETS], n + 1, "desplazamientos de salida");
+        IntBuffer inOffsets = ints(sections[IN_OFFSETS], n + 1, "desplazamientos de entrada");
+        if (outOffsets.get(n) != m || inOffsets.get(n) != m) {
+            throw new IOException("Los desplazamientos CSR no coinciden con el número de aristas (" + m + ").");
+        }
+        checkOffsets(outOffsets, n, m, "desplazamientos de salida");
+        checkOffsets(inOffsets, n, m, "desplazamientos de entrada");
+        IntBuffer outTargets = ints(sections[OUT_TARGETS], m, "destinos");
+        IntBuffer inSources = ints(sections[IN_SOURCES], m, "orígenes");
+        checkNodeIds(outTargets, n, "destinos");
+        checkNodeIds(inSources, n, "orígenes");
+        IntBuffer nameOffsets = null;
+        ByteBuffer nameBytes = null;
+        if ((flags & HAS_NAMES) != 0) {
+            nameOffsets = ints(sections[NAME_OFFSETS], n + 1, "desplazamientos de nombres");
+            nameBytes = sections[NAME_BYTES] != null ? sections[NAME_BYTES] : ByteBuffer.allocate(0);
+            if (nameOffsets.get(n) != nameBytes.capacity()) {
+                throw new IOException("La tabla de nombres está dañada.");
+            }
+            checkOffsets(nameOffsets, n, nameBytes.capacity(), "desplazamientos de nombres");
+        }
+        this.index = new MappedGraphIndex(n,
+                outOffsets,
+                outTargets,
+                ints(sections[OUT_WEIGHTS], m, "pesos de salida"),
+                inOffsets,
+                inSources,
+                ints(sections[IN_WEIGHTS], m, "pesos de entrada"),
+                longs(sections[SPECIAL], (n + 63) >>> 6, "nodos especiales"),
+                nameOffsets,
+                nameBytes);
+        this.chips = (flags & HAS_CHIPS) != 0 ? longs(sections[CHIPS], n, "chips") : null;
+        this.positions = (flags & HAS_POSITIONS) != 0 ? ints(sections[POSITIONS], 2 * n, "posiciones") : null;
+    }
+
+    private static IntBuffer ints(ByteBuffer section, int count, String name) throws IOException {
+        if (count == 0) {
+            return IntBuffer.allocate(0);
+        }
+        if (section == null || section.capacity() != 4L * count) {
+            throw new IOException("La sección de " + name + " no tiene el tamaño esperado.");
+        }
+        return section.asIntBuffer();
+    }
+
+    private static void checkOffsets(IntBuffer offsets, int n, int limit, String name) throws IOException {
+        int previous = 0;
+        for (int i = 0; i <= n; i++) {
+            int offset = offsets.get(i);
+            if (offset < previous || offset > limit || (i == 0 && offset != 0)) {
+                throw new IOException("La sección de " + name + " está dañada: la posición " + i + " vale " + offset + ".");
+            }
+            previous = offset;
+        }
+    }
+
+    private static void checkNodeIds(IntBuffer ids, int n, String name) throws IOException {
+        for (int k = 0, count = ids.capacity(); k < count; k++) {
+            int id = ids.get(k);
+            if (id < 0 || id >= n) {
+                throw new IOException("La sección de " + name + " está dañada: la arista " + k + " apunta al nodo " + id + " de " + n + ".");
+            }
+        }
+    }
+
+    private static LongBuffer longs(ByteBuffer section, int count, String name) throws IOException {
+        if (count == 0) {
+            return LongBuffer.allocate(0);
+        }
+        if (section == null || section.capacity() != 8L * count) {
+            throw new IOException("La sección de " + name + " no tiene el tamaño esperado.");
+        }
+        return section.asLongBuffer();
+    }
+
+    public static GraphFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new GraphFile(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public GraphIndex getIndex() {
+        return index;
+    }
+
+    public boolean hasInitialChips() {
+        return chips != null;
+    }
+
+    public long[] getInitialChips() {
+        long[] values = new long[index.nodeCount()];
+        if (chips != null) {
+            chips.get(0, values);
+        }
+        return values;
+    }
+
+    public boolean hasPositions() {
+        return positions != null;
+    }
+
+    public int getX(int id) {
+        return positions.get(2 * id);
+    }
+
+    public int getY(int id) {
+        return positions.get(2 * id + 1);
+    }
+
+    public static void write(Path file, GraphIndex index, long[] initialChips, int[] positions, boolean includeNames) throws IOException {
+        int n = index.nodeCount();
+        int m = index.edgeCount();
+        if (initialChips != null && initialChips.length != n) {
+            throw new IllegalArgumentException("Se esperaban " + n + " valores de chips y hay " + initialChips.length + ".");
+        }
+        if (positions != null && positions.length != 2 * n) {
+            throw new IllegalArgumentException("Se esperaban " + (2 * n) + " coordenadas y hay " + positions.length + ".");
+        }
+        byte[][] names = null;
+        long nameBytesLength = 0;
+        if (includeNames) {
+            names = new byte[n][];
+            for (int id = 0; id < n; id++) {
+                names[id] = index.nodeName(id).getBytes(StandardCharsets.UTF_8);
+                nameBytesLength += names[id].length;
+            }
+            if (nameBytesLength > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Los nombres de los nodos ocupan demasiado espacio.");
+            }
+        }
+
+        long[] lengths = new long[SECTION_COUNT];
+        lengths[OUT_OFFSETS] = 4L * (n + 1);
+        lengths[OUT_TARGETS] = 4L * m;
+        lengths[OUT_WEIGHTS] = 4L * m;
+        lengths[IN_OFFSETS] = 4L * (n + 1);
+        lengths[IN_SOURCES] = 4L * m;
+        lengths[IN_WEIGHTS] = 4L * m;
+        lengths[SPECIAL] = 8L * ((n + 63) >>> 6);
+        lengths[CHIPS] = initialChips != null ? 8L * n : 0;
+        lengths[POSITIONS] = positions != null ? 8L * n : 0;
+        lengths[NAME_OFFSETS] = names != null ? 4L * (n + 1) : 0;
+        lengths[NAME_BYTES] = nameBytesLength;
+        long[] offsets = new long[SECTION_COUNT];
+        long cursor = HEADER_SIZE;
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            if (lengths[section] > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("El grafo es demasiado grande para el formato binario.");
+            }
+            offsets[section] = lengths[section] == 0 ? 0 : cursor;
+            cursor = (cursor + lengths[section] + 7) & ~7L;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, (initialChips != null ? HAS_CHIPS : 0) | (positions != null ? HAS_POSITIONS : 0) | (names != null ? HAS_NAMES : 0));
+            header.putInt(12, n);
+            header.putInt(16, m);
+            for (int section = 0; section < SECTION_COUNT; section++) {
+                header.putLong(24 + 16 * section, offsets[section]);
+                header.putLong(32 + 16 * section, lengths[section]);
+            }
+
+            IntBuffer outOffsets = intSection(channel, offsets[OUT_OFFSETS], lengths[OUT_OFFSETS]);
+            IntBuffer outTargets = intSection(channel, offsets[OUT_TARGETS], lengths[OUT_TARGETS]);
+            IntBuffer outWeights = intSection(channel, offsets[OUT_WEIGHTS], lengths[OUT_WEIGHTS]);
+            IntBuffer inOffsets = intSection(channel, offsets[IN_OFFSETS], lengths[IN_OFFSETS]);
+            IntBuffer inSources = intSection(channel, offsets[IN_SOURCES], lengths[IN_SOURCES]);
+            IntBuffer inWeights = intSection(channel, offsets[IN_WEIGHTS], lengths[IN_WEIGHTS]);
+            for (int id = 0; id <= n; id++) {
+                outOffsets.put(id, id < n ? index.outStart(id) : m);
+                inOffsets.put(id, id < n ? index.inStart(id) : m);
+            }
+            for (int k = 0; k < m; k++) {
+                outTargets.put(k, index.outTarget(k));
+                outWeights.put(k, index.outWeight(k));
+                inSources.put(k, index.inSource(k));
+                inWeights.put(k, index.inWeight(k));
+            }
+
+            if (lengths[SPECIAL] > 0) {
+                LongBuffer special = channel.map(FileChannel.MapMode.READ_WRITE, offsets[SPECIAL], lengths[SPECIAL]).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+                for (int id = 0; id < n; id++) {
+                    if (index.isSpecial(id)) {
+                        special.put(id >>> 6, special.get(id >>> 6) | (1L << id));
+                    }
+                }
+            }
+            if (initialChips != null && n > 0) {
+                channel.map(FileChannel.MapMode.READ_WRITE, offsets[CHIPS], lengths[CHIPS]).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(initialChips);
+            }
+            if (positions != null && n > 0) {
+                intSection(channel, offsets[POSITIONS], lengths[POSITIONS]).put(positions);
+            }
+            if (names != null) {
+                IntBuffer nameOffsets = intSection(channel, offsets[NAME_OFFSETS], lengths[NAME_OFFSETS]);
+                int position = 0;
+                for (int id = 0; id < n; id++) {
+                    nameOffsets.put(id, position);
+                    position += names[id].length;
+                }
+                nameOffsets.put(n, position);
+                if (nameBytesLength > 0) {
+                    MappedByteBuffer nameBytes = channel.map(FileChannel.MapMode.READ_WRITE, offsets[NAME_BYTES], nameBytesLength);
+                    for (byte[] name : names) {
+                        nameBytes.put(name);
+                    }
+                }
+            }
+        }
+    }
+
+    private static IntBuffer intSection(FileChannel channel, long offset, long length) throws IOException {
+        if (length == 0) {
+            return IntBuffer.allocate(0);
+        }
+        return channel.map(FileChannel.MapMode.READ_WRITE, offset, length).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
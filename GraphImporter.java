@@ -0,0 +1,243 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+final class GraphImporter {
+    public static final class Result {
+        private final List<String> declaredNodes;
+        private final String initialNode;
+        private final int lineCount;
+        private final int edgeCount;
+
+        private Result(List<String> declaredNodes, String initialNode, int lineCount, int edgeCount) {
+            this.declaredNodes = declaredNodes;
+            this.initialNode = initialNode;
+            this.lineCount = lineCount;
+            this.edgeCount = edgeCount;
+        }
+
+        public List<String> getDeclaredNodes() {
+            return declaredNodes;
+        }
+
+        public String getInitialNode() {
+            return initialNode;
+        }
+
+        public int getLineCount() {
+            return lineCount;
+        }
+
+        public int getEdgeCount() {
+            return edgeCount;
+        }
+    }
+
+    private final boolean requireDeclaredNodes;
+    private final Map<String, String> nodes = new LinkedHashMap<>();
+    private final Set<String> declaredOrder = new LinkedHashSet<>();
+    private final Map<String, Map<String, Integer>> explicitBySource = new HashMap<>();
+    private final List<String> specialTargets = new ArrayList<>();
+    private String[] tokens = new String[8];
+    private String initialNode;
+    private int edgeCount;
+
+    private GraphImporter(boolean requireDeclaredNodes) {
+        this.requireDeclaredNodes = requireDeclaredNodes;
+    }
+
+    public static Result importFile(Path file, Graph graph, boolean requireDeclaredNodes) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, file.toString(), graph, requireDeclaredNodes);
+        }
+    }
+
+    public static Result importFrom(Reader source, String sourceName, Graph graph, boolean requireDeclaredNodes) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source, 1 << 16);
+        GraphImporter importer = new GraphImporter(requireDeclaredNodes);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int count = importer.tokenize(line);
+            if (count == 0) {
+                continue;
+            }
+            try {
+                importer.applyLine(count);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                throw new IllegalArgumentException(sourceName + ":" + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        try {
+            graph.importBulk(importer.nodes.keySet(), importer.explicitBySource, importer.specialTargets);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IllegalArgumentException(sourceName + ": " + e.getMessage(), e);
+        }
+        return new Result(Collections.unmodifiableList(new ArrayList<>(importer.declaredOrder)), importer.initialNode, lineNumber, importer.edgeCount);
+    }
+
+    private int tokenize(String line) {
+        int end = line.indexOf('#');
+        if (end < 0) {
+            end = line.length();
+        }
+        int count = 0;
+        int i = 0;
+        while (i < end) {
+            while (i < end && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i == end) {
+                break;
+            }
+            int start = i;
+            while (i < end && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (count == tokens.length) {
+                String[] grown = new String[tokens.length * 2];
+                System.arraycopy(tokens, 0, grown, 0, count);
+                tokens = grown;
+            }
+            tokens[count++] = line.substring(start, i);
+        }
+        return count;
+    }
+
+    private void applyLine(int count) {
+        String[] parts = tokens;
+        String first = parts[0];
+        switch (first.toLowerCase(Locale.ROOT)) {
+            case "nodo":
+            case "node":
+                for (int i = 1; i < count; i++) {
+                    declareNode(parts[i]);
+                }
+                return;
+            case "arista":
+            case "edge":
+                requireArguments(parts, count, 2);
+                addUndirected(parts[1], parts[2]);
+                return;
+            case "dirigida":
+            case "arc":
+                requireArguments(parts, count, 2);
+                addDirected(parts[1], parts[2], count > 3 ? Integer.parseInt(parts[3]) : 1);
+                return;
+            case "especial":
+            case "special":
+                requireArguments(parts, count, 1);
+                addSpecial(parts[1]);
+                return;
+            case "inicial":
+            case "initial":
+                requireArguments(parts, count, 1);
+                initialNode = parts[1];
+                return;
+            default:
+                break;
+        }
+
+        if (first.endsWith(":")) {
+            String source = endpoint(first.substring(0, first.length() - 1));
+            for (int i = 1; i < count; i++) {
+                addUndirected(source, parts[i]);
+            }
+        } else if (count >= 2 && parts[1].equals("->")) {
+            requireArguments(parts, count, 2);
+            for (int i = 2; i < count; i++) {
+                int separator = parts[i].lastIndexOf(':');
+                if (separator > 0) {
+                    addDirected(first, parts[i].substring(0, separator), Integer.parseInt(parts[i].substring(separator + 1)));
+                } else {
+                    addDirected(first, parts[i], 1);
+                }
+            }
+        } else if (count == 1 && first.endsWith("'")) {
+            addSpecial(first.substring(0, first.length() - 1));
+        } else if (count == 1) {
+            declareNode(first);
+        } else if (count == 2) {
+            addUndirected(first, parts[1]);
+        } else if (count == 3) {
+            addDirected(first, parts[1], Integer.parseInt(parts[2]));
+        } else {
+            throw new IllegalArgumentException("Línea no reconocida: se esperaba 'a b', 'a b peso', 'a: b c ...', 'a -> b[:peso] ...' o una directiva.");
+        }
+    }
+
+    private static void requireArguments(String[] parts, int count, int expected) {
+        if (count < expected + 1) {
+            throw new IllegalArgumentException("La directiva '" + parts[0] + "' necesita " + expected + " argumento(s).");
+        }
+    }
+
+    private String endpoint(String name) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Nombre de nodo vacío.");
+        }
+        if (name.endsWith("'")) {
+            throw new IllegalArgumentException("No se pueden añadir aristas hacia/desde el nodo especial '" + name + "'.");
+        }
+        String canonical = nodes.get(name);
+        if (canonical == null) {
+            if (requireDeclaredNodes) {
+                throw new IllegalArgumentException("Error: Ambos nodos (origen y destino) deben existir ('" + name + "' no está declarado).");
+            }
+            declareNode(name);
+            canonical = name;
+        }
+        return canonical;
+    }
+
+    private void declareNode(String name) {
+        if (nodes.putIfAbsent(name, name) == null) {
+            declaredOrder.add(name);
+        }
+    }
+
+    private void addUndirected(String first, String second) {
+        addDirected(first, second, 1);
+        addDirected(second, first, 1);
+    }
+
+    private void addDirected(String source, String target, int weight) {
+        source = endpoint(source);
+        target = endpoint(target);
+        if (weight <= 0) {
+            throw new IllegalArgumentException("El peso de la arista '" + source + "' -> '" + target + "' debe ser positivo (se leyó " + weight + ").");
+        }
+        Map<String, Integer> outgoing = explicitBySource.get(source);
+        if (outgoing == null) {
+            outgoing = new HashMap<>();
+            explicitBySource.put(source, outgoing);
+        }
+        if (outgoing.put(target, weight) == null) {
+            edgeCount++;
+        }
+    }
+
+    private void addSpecial(String target) {
+        if (!nodes.containsKey(target)) {
+            throw new IllegalArgumentException("El nodo destino '" + target + "' no existe en el grafo.");
+        }
+        String specialNode = target + "'";
+        if (!declaredOrder.add(specialNode)) {
+            throw new IllegalStateException("Ya existe un nodo especial asociado a '" + specialNode + "'.");
+        }
+        specialTargets.add(target);
+    }
+}
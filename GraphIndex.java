@@ -0,0 +1,87 @@
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+abstract class GraphIndex {
+
+    static GraphIndex build(Collection<String> nodes, Map<String, Map<String, Integer>> directedEdges, Set<String> specialNodes) {
+        String[] names = nodes.toArray(new String[0]);
+        int n = names.length;
+        Map<String, Integer> ids = new HashMap<>(n * 2);
+        boolean[] special = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            ids.put(names[i], i);
+            special[i] = specialNodes.contains(names[i]);
+        }
+
+        int[] outOffsets = new int[n + 1];
+        for (int s = 0; s < n; s++) {
+            Map<String, Integer> targets = directedEdges.get(names[s]);
+            if (targets == null) continue;
+            for (String target : targets.keySet()) {
+                if (ids.containsKey(target)) {
+                    outOffsets[s + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+        }
+
+        int[] outTargets = new int[outOffsets[n]];
+        int[] outWeights = new int[outOffsets[n]];
+        for (int s = 0; s < n; s++) {
+            Map<String, Integer> targets = directedEdges.get(names[s]);
+            if (targets == null) continue;
+            int out = outOffsets[s];
+            for (Map.Entry<String, Integer> entry : targets.entrySet()) {
+                Integer t = ids.get(entry.getKey());
+                if (t != null) {
+                    outTargets[out] = t;
+                    outWeights[out++] = entry.getValue();
+                }
+            }
+        }
+        return new ArrayGraphIndex(names, ids, special, outOffsets, outTargets, outWeights);
+    }
+
+    static GraphIndex fromOutgoing(String[] names, boolean[] special, int[] outOffsets, int[] outTargets, int[] outWeights) {
+        Map<String, Integer> ids = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            if (ids.put(names[i], i) != null) {
+                throw new IllegalArgumentException("El nodo '" + names[i] + "' aparece más de una vez.");
+            }
+        }
+        return new ArrayGraphIndex(names, ids, special, outOffsets, outTargets, outWeights);
+    }
+
+    public abstract int nodeCount();
+
+    public abstract int nodeId(String nodeName);
+
+    public abstract String nodeName(int id);
+
+    public abstract boolean isSpecial(int id);
+
+    public abstract int inStart(int id);
+
+    public abstract int inEnd(int id);
+
+    public abstract int inSource(int k);
+
+    public abstract int inWeight(int k);
+
+    public abstract int outStart(int id);
+
+    public abstract int outEnd(int id);
+
+    public abstract int outTarget(int k);
+
+    public abstract int outWeight(int k);
+
+    public int edgeCount() {
+        int n = nodeCount();
+        return n == 0 ? 0 : outEnd(n - 1);
+    }
+}
@@ -0,0 +1,123 @@
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+final class InitialNodeSweep {
+    public static final class Entry {
+        private final String initialNode;
+        private final int steps;
+        private final boolean converged;
+        private final long elapsedNanos;
+        private final DivergenceDetector.Verdict verdict;
+        private final long[] finalChips;
+        private final BigInteger[] wideFinalChips;
+
+        private Entry(String initialNode, EngineRun run, ChipEngine engine) {
+            this.initialNode = initialNode;
+            this.steps = run.getSteps();
+            this.converged = run.isConverged();
+            this.elapsedNanos = run.getElapsedNanos();
+            this.verdict = run.getVerdict();
+            int n = engine.getIndex().nodeCount();
+            if (engine.isWide()) {
+                this.finalChips = null;
+                this.wideFinalChips = new BigInteger[n];
+                for (int id = 0; id < n; id++) {
+                    wideFinalChips[id] = engine.getChips(id);
+                }
+            } else {
+                this.finalChips = new long[n];
+                this.wideFinalChips = null;
+                for (int id = 0; id < n; id++) {
+                    finalChips[id] = engine.getChips(id).longValue();
+                }
+            }
+        }
+
+        public String getInitialNode() {
+            return initialNode;
+        }
+
+        public int getSteps() {
+            return steps;
+        }
+
+        public boolean isConverged() {
+            return converged;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public DivergenceDetector.Verdict getVerdict() {
+            return verdict;
+        }
+
+        public BigInteger getFinalChips(int id) {
+            return finalChips != null ? BigInteger.valueOf(finalChips[id]) : wideFinalChips[id];
+        }
+    }
+
+    private final GraphIndex index;
+    private final int maxSteps;
+    private final long timeLimitNanos;
+    private final Supplier<ReflectionScheduler> schedulers;
+    private final boolean divergenceCheck;
+    private final Entry[] entries;
+
+    private InitialNodeSweep(GraphIndex index, int maxSteps, long timeLimitNanos, Supplier<ReflectionScheduler> schedulers, boolean divergenceCheck) {
+        this.index = index;
+        this.maxSteps = maxSteps;
+        this.timeLimitNanos = timeLimitNanos;
+        this.schedulers = schedulers;
+        this.divergenceCheck = divergenceCheck;
+        this.entries = new Entry[index.nodeCount()];
+    }
+
+    public static List<Entry> run(GraphIndex index, int maxSteps, long timeLimitNanos, Supplier<ReflectionScheduler> schedulers, boolean divergenceCheck, ForkJoinPool pool) {
+        int n = index.nodeCount();
+        if (n == 0) {
+            throw new IllegalArgumentException("El grafo no tiene nodos.");
+        }
+        for (int id = 0; id < n; id++) {
+            if (index.isSpecial(id)) {
+                throw new IllegalArgumentException("El barrido de nodos iniciales solo aplica al juego estándar (el grafo tiene nodos especiales).");
+            }
+        }
+        InitialNodeSweep sweep = new InitialNodeSweep(index, maxSteps, timeLimitNanos, schedulers, divergenceCheck);
+        pool.invoke(ForkJoinTask.adapt(() -> sweep.playRange(0, n)));
+        Entry[] entries = sweep.entries;
+        return new AbstractList<Entry>() {
+            @Override
+            public Entry get(int i) {
+                return entries[i];
+            }
+
+            @Override
+            public int size() {
+                return entries.length;
+            }
+        };
+    }
+
+    private void play(int start) {
+        long[] chips = new long[index.nodeCount()];
+        chips[start] = 1;
+        ChipEngine engine = new ChipEngine(index, chips);
+        EngineRun run = EngineRun.play(engine, schedulers.get(), divergenceCheck, maxSteps, timeLimitNanos, "barrido");
+        entries[start] = new Entry(index.nodeName(start), run, engine);
+    }
+
+    private void playRange(int from, int to) {
+        if (to - from == 1) {
+            play(from);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        ForkJoinTask.invokeAll(ForkJoinTask.adapt(() -> playRange(from, middle)), ForkJoinTask.adapt(() -> playRange(middle, to)));
+    }
+}
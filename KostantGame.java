@@ -0,0 +1,700 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class KostantGame {
+    public static final class Snapshot {
+        private final GraphIndex index;
+        private final BigInteger[] chips;
+        private final NodeState[] states;
+
+        private Snapshot(GraphIndex index, BigInteger[] chips, NodeState[] states) {
+            this.index = index;
+            this.chips = chips;
+            this.states = states;
+        }
+
+        public GraphIndex getIndex() {
+            return index;
+        }
+
+        public BigInteger getChips(int id) {
+            return chips[id];
+        }
+
+        public NodeState getNodeState(int id) {
+            return states[id];
+        }
+    }
+
+    private final Graph graph;
+    private final BitSet unflushedNodes = new BitSet();
+    private volatile ReflectionListener[] reflectionListeners = new ReflectionListener[0];
+    private ChipEngine engine;
+    private long trackedChipsVersion = -1;
+    private boolean consistencyCheckEnabled = Boolean.getBoolean("kostant.consistencyCheck");
+    private final EngineMetrics metrics = EngineMetrics.global();
+    private long reflectionsPlayed;
+    private int reflectionsUntilSample = 1;
+    private ReflectionScheduler scheduler = ReflectionSchedulers.firstSad();
+    private ChipEngine scheduledEngine;
+    private long scheduledModCount;
+    private final DivergenceDetector divergenceDetector = new DivergenceDetector();
+    private boolean divergenceCheckEnabled = true;
+    private ChipEngine watchedEngine;
+    private long watchedModCount;
+    private FiniteTypeCheck finiteTypeCheck;
+
+    public KostantGame(Graph graph) {
+        this.graph = graph;
+        graph.addPendingChipsFlusher(this::flushChips);
+    }
+
+    private void recordReflections(ChipEngine current, int lastId, int count) {
+        reflectionsPlayed += count;
+        reflectionsUntilSample -= count;
+        if (reflectionsUntilSample <= 0) {
+            metrics.sampleReflection(current, lastId, reflectionsPlayed);
+            reflectionsUntilSample = metrics.getSampleInterval();
+        }
+    }
+
+    public synchronized EngineMetrics getMetrics() {
+        if (engine != null) {
+            engine.drainMetrics(metrics);
+        }
+        return metrics;
+    }
+
+    private ChipEngine ensureTracking() {
+        GraphIndex index = graph.getIndex();
+        if (engine != null && engine.getIndex() == index && graph.getChipsVersion() == trackedChipsVersion) {
+            return engine;
+        }
+        flushChips();
+        long version = graph.getChipsVersion();
+        BigInteger[] initialChips = new BigInteger[index.nodeCount()];
+        for (int id = 0; id < initialChips.length; id++) {
+            initialChips[id] = graph.getChips(index.nodeName(id));
+        }
+        engine = new ChipEngine(index, initialChips);
+        trackedChipsVersion = version;
+        unflushedNodes.clear();
+        return engine;
+    }
+
+    public synchronized void addReflectionListener(ReflectionListener listener) {
+        ReflectionListener[] updated = Arrays.copyOf(reflectionListeners, reflectionListeners.length + 1);
+        updated[updated.length - 1] = listener;
+        reflectionListeners = updated;
+    }
+
+    public synchronized void removeReflectionListener(ReflectionListener listener) {
+        List<ReflectionListener> remaining = new ArrayList<>(Arrays.asList(reflectionListeners));
+        remaining.remove(listener);
+        reflectionListeners = remaining.toArray(new ReflectionListener[0]);
+    }
+
+    private void notifyReflection(GraphIndex index, int id, BigInteger oldChips, BigInteger newChips) {
+        for (ReflectionListener listener : reflectionListeners) {
+            listener.onReflection(index, id, oldChips, newChips);
+        }
+    }
+
+    public synchronized void setConsistencyCheckEnabled(boolean enabled) {
+        this.consistencyCheckEnabled = enabled;
+    }
+
+    public synchronized boolean isConsistencyCheckEnabled() {
+        return consistencyCheckEnabled;
+    }
+
+    public synchronized void verifyNeighborSums() {
+        ensureTracking().verifyNeighborSums();
+    }
+
+    public synchronized GraphIndex getIndex() {
+        return ensureTracking().getIndex();
+    }
+
+    public synchronized int getNodeId(String node) {
+        return ensureTracking().getIndex().nodeId(node);
+    }
+
+    public synchronized String getNodeName(int id) {
+        return ensureTracking().getIndex().nodeName(id);
+    }
+
+    public synchronized int getNodeCount() {
+        return ensureTracking().getIndex().nodeCount();
+    }
+
+    private static NodeState toNodeState(int comparison) {
+        if (comparison < 0) {
+            return NodeState.SAD;
+        } else if (comparison > 0) {
+            return NodeState.EXCITED;
+        } else {
+            return NodeState.HAPPY;
+        }
+    }
+
+    public synchronized NodeState getNodeState(String node) {
+        if (graph.isSpecialNode(node)) {
+            return NodeState.HAPPY;
+        }
+        ChipEngine current = ensureTracking();
+        int id = current.getIndex().nodeId(node);
+        if (id < 0) {
+            return NodeState.HAPPY;
+        }
+        return toNodeState(current.compareToNeighbors(id));
+    }
+
+    public synchronized NodeState getNodeState(int id) {
+        ChipEngine current = ensureTracking();
+        if (current.getIndex().isSpecial(id)) {
+            return NodeState.HAPPY;
+        }
+        return toNodeState(current.compareToNeighbors(id));
+    }
+
+    public synchronized BigInteger getChips(int id) {
+        return ensureTracking().getChips(id);
+    }
+
+    public List<InitialNodeSweep.Entry> sweepInitialNodes(int maxSteps, long timeLimitNanos, ForkJoinPool pool) {
+        String schedulerName;
+        boolean divergenceCheck;
+        synchronized (this) {
+            schedulerName = scheduler.getName();
+            divergenceCheck = divergenceCheckEnabled;
+        }
+        return InitialNodeSweep.run(graph.getIndex(), maxSteps, timeLimitNanos, () -> ReflectionSchedulers.create(schedulerName, 0), divergenceCheck, pool);
+    }
+
+    public synchronized Snapshot snapshot() {
+        ChipEngine current = ensureTracking();
+        GraphIndex index = current.getIndex();
+        int n = index.nodeCount();
+        BigInteger[] chips = new BigInteger[n];
+        NodeState[] states = new NodeState[n];
+        for (int id = 0; id < n; id++) {
+            chips[id] = current.getChips(id);
+            states[id] = index.isSpecial(id) ? NodeState.HAPPY : toNodeState(current.compareToNeighbors(id));
+        }
+        return new Snapshot(index, chips, states);
+    }
+
+    public synchronized void initializeGame(String specifiedInitialNodeLogicalName) {
+        for (String node : graph.getAllNodes()) {
+            graph.setChips(node, BigInteger.ZERO);
+        }
+
+        if (!graph.getSpecialNodesLogicalNames().isEmpty()) {
+            for (String specialNode : graph.getSpecialNodesLogicalNames()) {
+                graph.setChips(specialNode, BigInteger.ONE);
+                GameLog.log(GameLog.Level.INFO, "Juego modificado inicializado. El nodo especial '{}' tiene 1 chip.", specialNode);
+            }
+        } else {
+            if (!graph.containsNode(specifiedInitialNodeLogicalName)) {
+                throw new IllegalArgumentException("El nodo inicial '" + specifiedInitialNodeLogicalName + "' no existe en el grafo.");
+            }
+            graph.setChips(specifiedInitialNodeLogicalName, BigInteger.ONE);
+            GameLog.log(GameLog.Level.INFO, "Juego estándar inicializado. El nodo '{}' tiene 1 chip. Los demás tienen 0.", specifiedInitialNodeLogicalName);
+        }
+    }
+
+    public synchronized List<String> getUnhappyNodes() {
+        ChipEngine current = ensureTracking();
+        List<String> unhappyNodes = new ArrayList<>(current.sadNodeCount());
+        for (int id = current.nextSadNode(0); id >= 0; id = current.nextSadNode(id + 1)) {
+            unhappyNodes.add(current.getIndex().nodeName(id));
+        }
+        return unhappyNodes;
+    }
+
+    public synchronized void setScheduler(ReflectionScheduler scheduler) {
+        if (scheduler == null) {
+            throw new IllegalArgumentException("El planificador de reflexiones no puede ser nulo.");
+        }
+        this.scheduler = scheduler;
+        this.scheduledEngine = null;
+    }
+
+    public synchronized ReflectionScheduler getScheduler() {
+        return scheduler;
+    }
+
+    private int nextScheduledNode(ChipEngine current) {
+        if (scheduledEngine != current || scheduledModCount != current.getModCount()) {
+            scheduler.attach(current);
+            scheduledEngine = current;
+            scheduledModCount = current.getModCount();
+        }
+        return scheduler.next();
+    }
+
+    private void reflectScheduled(ChipEngine current, int id) {
+        boolean tracked = scheduledEngine == current && scheduledModCount == current.getModCount();
+        watchBeforeReflection(current);
+        current.reflect(id);
+        if (tracked) {
+            scheduler.onReflected(id);
+            scheduledModCount = current.getModCount();
+        }
+        if (watchedEngine == current) {
+            divergenceDetector.onReflected(id);
+            watchedModCount = current.getModCount();
+        }
+    }
+
+    private void watchBeforeReflection(ChipEngine current) {
+        if (!divergenceCheckEnabled) {
+            watchedEngine = null;
+        } else if (watchedEngine != current || watchedModCount != current.getModCount()) {
+            divergenceDetector.attach(current);
+            watchedEngine = current;
+            watchedModCount = current.getModCount();
+        }
+    }
+
+    public synchronized void setDivergenceCheckEnabled(boolean enabled) {
+        this.divergenceCheckEnabled = enabled;
+        if (!enabled) {
+            watchedEngine = null;
+        }
+    }
+
+    public synchronized boolean isDivergenceCheckEnabled() {
+        return divergenceCheckEnabled;
+    }
+
+    public synchronized DivergenceDetector.Verdict getVerdict() {
+        ChipEngine current = ensureTracking();
+        if (watchedEngine != current || watchedModCount != current.getModCount()) {
+            return null;
+        }
+        return divergenceDetector.getVerdict();
+    }
+
+    public synchronized FiniteTypeCheck getFiniteTypeCheck() {
+        GraphIndex index = graph.getIndex();
+        if (finiteTypeCheck == null || finiteTypeCheck.getIndex() != index) {
+            long startNanos = System.nanoTime();
+            finiteTypeCheck = FiniteTypeCheck.analyze(index);
+            if (GameLog.isEnabled(GameLog.Level.INFO)) {
+                GameLog.log(GameLog.Level.INFO, "Matriz de Cartan analizada en {} ms: {}.", (System.nanoTime() - startNanos) / 1_000_000, finiteTypeCheck.describe());
+            }
+        }
+        return finiteTypeCheck;
+    }
+
+    public synchronized FiniteTypeCheck.Verdict getFiniteTypeVerdict() {
+        FiniteTypeCheck check = getFiniteTypeCheck();
+        return check.isFiniteType() ? null : check.verdictFor(ensureTracking());
+    }
+
+    public synchronized String getNextUnhappyNode() {
+        ChipEngine current = ensureTracking();
+        int id = nextScheduledNode(current);
+        return id < 0 ? null : current.getIndex().nodeName(id);
+    }
+
+    public synchronized int getNextUnhappyNodeId() {
+        return nextScheduledNode(ensureTracking());
+    }
+
+    public synchronized boolean hasUnhappyNodes() {
+        return ensureTracking().nextSadNode(0) >= 0;
+    }
+
+    public synchronized BigInteger performReflection(String nodeToReflect) {
+        if (!graph.containsNode(nodeToReflect)) {
+            throw new IllegalArgumentException("El nodo '" + nodeToReflect + "' no existe en el grafo.");
+        }
+        if (graph.isSpecialNode(nodeToReflect)) {
+            throw new IllegalStateException("El nodo especial es siempre feliz y no puede ser reflejado.");
+        }
+        ChipEngine current = ensureTracking();
+        int id = current.getIndex().nodeId(nodeToReflect);
+
+        BigInteger old_c_i = current.getChips(id);
+        reflectScheduled(current, id);
+        BigInteger new_c_i = current.getChips(id);
+        graph.writeChips(nodeToReflect, new_c_i);
+        trackedChipsVersion = graph.getChipsVersion();
+        unflushedNodes.clear(id);
+        if (consistencyCheckEnabled) {
+            current.verifyNeighborSums();
+        }
+        recordReflections(current, id, 1);
+        notifyReflection(current.getIndex(), id, old_c_i, new_c_i);
+        if (GameLog.isEnabled(GameLog.Level.DEBUG)) {
+            GameLog.log(GameLog.Level.DEBUG, "Reflexión realizada en el nodo '{}'. Los chips cambiaron de {} a {}.", nodeToReflect, old_c_i, new_c_i);
+        }
+        return new_c_i;
+    }
+
+    /**
+     * Reflects a node in the engine only. Its chips reach {@link Graph} on the next
+     * {@link #flushChips()}, so until then {@code Graph.getChips} returns the old value.
+     * Any change to the graph or its chips flushes the pending reflections first.
+     */
+    public synchronized void reflectNode(int id) {
+        ChipEngine current = ensureTracking();
+        if (id < 0 || id >= current.getIndex().nodeCount()) {
+            throw new IllegalArgumentException("El nodo con id " + id + " no existe en el grafo.");
+        }
+        if (current.getIndex().isSpecial(id)) {
+            throw new IllegalStateException("El nodo especial es siempre feliz y no puede ser reflejado.");
+        }
+        BigInteger oldChips = reflectionListeners.length == 0 ? null : current.getChips(id);
+        reflectScheduled(current, id);
+        unflushedNodes.set(id);
+        recordReflections(current, id, 1);
+        if (consistencyCheckEnabled) {
+            current.verifyNeighborSums();
+        }
+        if (oldChips != null) {
+            notifyReflection(current.getIndex(), id, oldChips, current.getChips(id));
+        }
+    }
+
+    public synchronized void flushChips() {
+        if (engine == null) {
+            return;
+        }
+        engine.drainMetrics(metrics);
+        if (unflushedNodes.isEmpty()) {
+            return;
+        }
+        GraphIndex index = engine.getIndex();
+        for (int id = unflushedNodes.nextSetBit(0); id >= 0; id = unflushedNodes.nextSetBit(id + 1)) {
+            if (graph.containsNode(index.nodeName(id))) {
+                graph.writeChips(index.nodeName(id), engine.getChips(id));
+            }
+        }
+        unflushedNodes.clear();
+        trackedChipsVersion = graph.getChipsVersion();
+    }
+
+    public synchronized int playUntilConverged(int maxSteps) {
+        return playUntilConverged(maxSteps, Long.MAX_VALUE);
+    }
+
+    public synchronized int playUntilConvergedParallel(int maxSteps, long timeLimitNanos, long seed, ForkJoinPool pool, boolean verifyAgainstSequential) {
+        long startNanos = System.nanoTime();
+        EngineMetrics.RunEvent run = metrics.beginRun();
+        ChipEngine current = ensureTracking();
+        GraphIndex index = current.getIndex();
+        ChipEngine initialState = verifyAgainstSequential ? new ChipEngine(current) : null;
+
+        int n = index.nodeCount();
+        int[] nodeByRank = new int[n];
+        for (int id = 0; id < n; id++) {
+            nodeByRank[id] = id;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = nodeByRank[i];
+            nodeByRank[i] = nodeByRank[j];
+            nodeByRank[j] = swap;
+        }
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            rank[nodeByRank[r]] = r;
+        }
+
+        int[] blockedStamps = new int[n];
+        int[] selected = new int[n];
+        int stepsTaken = 0;
+        int round = 0;
+        try {
+            while (stepsTaken < maxSteps && current.nextSadNode(0) >= 0) {
+                if (System.nanoTime() - startNanos > timeLimitNanos) {
+                    if (GameLog.isEnabled(GameLog.Level.INFO)) {
+                        GameLog.log(GameLog.Level.INFO, "El juego paralelo se detuvo después de {} pasos (límite de tiempo alcanzado).", stepsTaken);
+                    }
+                    break;
+                }
+                round++;
+                int count = selectIndependentSadNodes(current, rank, nodeByRank, blockedStamps, round, selected, maxSteps - stepsTaken);
+                watchBeforeReflection(current);
+                BigInteger[] oldChips = null;
+                if (reflectionListeners.length != 0) {
+                    oldChips = new BigInteger[count];
+                    for (int i = 0; i < count; i++) {
+                        oldChips[i] = current.getChips(selected[i]);
+                    }
+                }
+                current.reflectIndependentSet(selected, count, pool);
+                for (int i = 0; i < count; i++) {
+                    unflushedNodes.set(selected[i]);
+                }
+                DivergenceDetector.Verdict verdict = null;
+                if (watchedEngine == current) {
+                    verdict = divergenceDetector.onReflected(selected, count);
+                    watchedModCount = current.getModCount();
+                }
+                if (consistencyCheckEnabled) {
+                    current.verifyNeighborSums();
+                }
+                if (oldChips != null) {
+                    for (int i = 0; i < count; i++) {
+                        notifyReflection(index, selected[i], oldChips[i], current.getChips(selected[i]));
+                    }
+                }
+                stepsTaken += count;
+                if (count > 0) {
+                    recordReflections(current, selected[count - 1], count);
+                }
+                if (verdict != null) {
+                    GameLog.log(GameLog.Level.INFO, "{}", verdict.getMessage());
+                    break;
+                }
+            }
+        } finally {
+            flushChips();
+            metrics.endRun(run, current, "paralelo", stepsTaken, System.nanoTime() - startNanos);
+        }
+        if (GameLog.isEnabled(GameLog.Level.INFO)) {
+            GameLog.log(GameLog.Level.INFO, "Juego paralelo: {} reflexiones en {} rondas.", stepsTaken, round);
+        }
+
+        if (verifyAgainstSequential && current.nextSadNode(0) < 0) {
+            verifySequentialOutcome(initialState, current, stepsTaken);
+        }
+        return stepsTaken;
+    }
+
+    private static int selectIndependentSadNodes(ChipEngine current, int[] rank, int[] nodeByRank, int[] blockedStamps, int round, int[] selected, int limit) {
+        GraphIndex index = current.getIndex();
+        int candidates = 0;
+        for (int id = current.nextSadNode(0); id >= 0; id = current.nextSadNode(id + 1)) {
+            selected[candidates++] = rank[id];
+        }
+        Arrays.sort(selected, 0, candidates);
+
+        int count = 0;
+        for (int i = 0; i < candidates && count < limit; i++) {
+            int id = nodeByRank[selected[i]];
+            if (blockedStamps[id] == round) {
+                continue;
+            }
+            selected[count++] = id;
+            blockedStamps[id] = round;
+            for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                blockedStamps[index.outTarget(k)] = round;
+            }
+            for (int k = index.inStart(id), end = index.inEnd(id); k < end; k++) {
+                blockedStamps[index.inSource(k)] = round;
+            }
+        }
+        return count;
+    }
+
+    private static void verifySequentialOutcome(ChipEngine sequential, ChipEngine parallel, int parallelSteps) {
+        GraphIndex index = sequential.getIndex();
+        int sequentialSteps = 0;
+        for (int id = sequential.nextSadNode(0); id >= 0 && sequentialSteps <= parallelSteps; id = sequential.nextSadNode(0)) {
+            sequential.reflect(id);
+            sequentialSteps++;
+        }
+        if (sequentialSteps != parallelSteps) {
+            throw new IllegalStateException("El juego paralelo usó " + parallelSteps + " reflexiones y el secuencial " + sequentialSteps + ".");
+        }
+        for (int id = 0, n = index.nodeCount(); id < n; id++) {
+            if (!sequential.getChips(id).equals(parallel.getChips(id))) {
+                throw new IllegalStateException("El juego paralelo terminó con " + parallel.getChips(id) + " chips en el nodo '" + index.nodeName(id) + "' y el secuencial con " + sequential.getChips(id) + ".");
+            }
+        }
+    }
+
+    public synchronized int playUntilConverged(int maxSteps, long timeLimitNanos) {
+        return playUntilConverged(maxSteps, timeLimitNanos, (PlayMonitor) null);
+    }
+
+    public synchronized int playUntilConverged(int maxSteps, long timeLimitNanos, PlayMonitor monitor) {
+        long startNanos = System.nanoTime();
+        EngineMetrics.RunEvent run = metrics.beginRun();
+        ChipEngine current = ensureTracking();
+        GraphIndex index = current.getIndex();
+        int stepsTaken = 0;
+        try {
+            while (stepsTaken < maxSteps) {
+                int id = nextScheduledNode(current);
+                if (id < 0) {
+                    GameLog.log(GameLog.Level.INFO, "El juego ha convergido: No quedan nodos tristes.");
+                    break;
+                }
+                if ((stepsTaken & 1023) == 0) {
+                    if (System.nanoTime() - startNanos > timeLimitNanos) {
+                        if (GameLog.isEnabled(GameLog.Level.INFO)) {
+                            GameLog.log(GameLog.Level.INFO, "El juego se detuvo después de {} pasos (límite de tiempo alcanzado). Todavía pueden quedar nodos tristes.", stepsTaken);
+                        }
+                        break;
+                    }
+                    if (monitor != null && !monitor.onProgress(stepsTaken)) {
+                        if (GameLog.isEnabled(GameLog.Level.INFO)) {
+                            GameLog.log(GameLog.Level.INFO, "El juego se detuvo después de {} pasos (cancelado).", stepsTaken);
+                        }
+                        break;
+                    }
+                }
+
+                boolean debug = GameLog.isEnabled(GameLog.Level.DEBUG);
+                boolean observed = debug || reflectionListeners.length > 0;
+                BigInteger old_c_i = observed ? current.getChips(id) : null;
+                try {
+                    reflectScheduled(current, id);
+                } catch (IllegalStateException e) {
+                    GameLog.log(GameLog.Level.ERROR, "Error inesperado durante la reflexión automática: {}", e.getMessage());
+                    break;
+                }
+                unflushedNodes.set(id);
+                if (consistencyCheckEnabled) {
+                    current.verifyNeighborSums();
+                }
+                if (observed) {
+                    BigInteger new_c_i = current.getChips(id);
+                    notifyReflection(index, id, old_c_i, new_c_i);
+                    if (debug) {
+                        GameLog.log(GameLog.Level.DEBUG, "Reflexión realizada en el nodo '{}'. Los chips cambiaron de {} a {}.", index.nodeName(id), old_c_i, new_c_i);
+                    }
+                }
+                stepsTaken++;
+                recordReflections(current, id, 1);
+                DivergenceDetector.Verdict verdict = watchedEngine == current ? divergenceDetector.getVerdict() : null;
+                if (verdict != null) {
+                    GameLog.log(GameLog.Level.INFO, "{}", verdict.getMessage());
+                    break;
+                }
+            }
+        } finally {
+            flushChips();
+            metrics.endRun(run, current, "secuencial", stepsTaken, System.nanoTime() - startNanos);
+        }
+
+        if (stepsTaken >= maxSteps) {
+            if (GameLog.isEnabled(GameLog.Level.INFO)) {
+                GameLog.log(GameLog.Level.INFO, "El juego se detuvo después de {} pasos (límite alcanzado). Todavía pueden quedar nodos tristes.", maxSteps);
+            }
+        }
+        return stepsTaken;
+    }
+
+    public synchronized ConvergenceCache.CanonicalForm canonicalForm(ConvergenceCache cache) {
+        ChipEngine current = ensureTracking();
+        GraphIndex index = current.getIndex();
+        BigInteger[] chips = new BigInteger[index.nodeCount()];
+        for (int id = 0; id < chips.length; id++) {
+            chips[id] = current.getChips(id);
+        }
+        return cache.canonicalForm(index, chips);
+    }
+
+    public synchronized ConvergenceCache.Result applyCachedResult(ConvergenceCache cache, ConvergenceCache.CanonicalForm form, int maxSteps) {
+        if (form == null) {
+            return null;
+        }
+        ConvergenceCache.Result cached = cache.get(form);
+        if (cached == null || cached.steps > maxSteps) {
+            return null;
+        }
+        GraphIndex index = ensureTracking().getIndex();
+        for (int id = 0; id < cached.finalChips.length; id++) {
+            graph.setChips(index.nodeName(id), cached.finalChips[id]);
+        }
+        if (GameLog.isEnabled(GameLog.Level.INFO)) {
+            GameLog.log(GameLog.Level.INFO, "Resultado reutilizado (motor {}): el juego converge en {} pasos.", cached.engine, cached.steps);
+        }
+        return cached;
+    }
+
+    public synchronized void storeResult(ConvergenceCache cache, ConvergenceCache.CanonicalForm form, int steps, String engineName) {
+        ChipEngine current = ensureTracking();
+        if (form == null || current.getIndex().nodeCount() != form.positions.length || current.nextSadNode(0) >= 0) {
+            return;
+        }
+        BigInteger[] finalChips = new BigInteger[form.positions.length];
+        for (int id = 0; id < finalChips.length; id++) {
+            finalChips[id] = current.getChips(id);
+        }
+        cache.put(form, steps, engineName, finalChips);
+    }
+
+    public synchronized int playUntilConverged(int maxSteps, long timeLimitNanos, ConvergenceCache cache) {
+        ConvergenceCache.CanonicalForm form = canonicalForm(cache);
+        ConvergenceCache.Result cached = applyCachedResult(cache, form, maxSteps);
+        if (cached != null) {
+            return cached.steps;
+        }
+        GraphIndex index = getIndex();
+        int stepsTaken = playUntilConverged(maxSteps, timeLimitNanos);
+        if (getIndex() == index) {
+            storeResult(cache, form, stepsTaken, "secuencial");
+        }
+        return stepsTaken;
+    }
+
+    public synchronized int playUntilConvergedParallel(int maxSteps, long timeLimitNanos, long seed, ForkJoinPool pool, boolean verifyAgainstSequential, ConvergenceCache cache) {
+        ConvergenceCache.CanonicalForm form = canonicalForm(cache);
+        ConvergenceCache.Result cached = applyCachedResult(cache, form, maxSteps);
+        if (cached != null) {
+            return cached.steps;
+        }
+        GraphIndex index = getIndex();
+        int stepsTaken = playUntilConvergedParallel(maxSteps, timeLimitNanos, seed, pool, verifyAgainstSequential);
+        if (getIndex() == index) {
+            storeResult(cache, form, stepsTaken, "paralelo");
+        }
+        return stepsTaken;
+    }
+
+    public synchronized DynkinDiagram.Solution closedFormSolution() {
+        ChipEngine current = ensureTracking();
+        GraphIndex index = current.getIndex();
+        BigInteger[] chips = new BigInteger[index.nodeCount()];
+        for (int id = 0; id < chips.length; id++) {
+            chips[id] = current.getChips(id);
+        }
+        return DynkinDiagram.solve(index, chips);
+    }
+
+    public synchronized DynkinDiagram.Solution playClosedForm(boolean verify) {
+        DynkinDiagram.Solution solution = closedFormSolution();
+        if (solution == null) {
+            return null;
+        }
+        GraphIndex index = getIndex();
+        if (verify) {
+            if (solution.getSteps() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("La forma cerrada predice " + solution.getSteps() + " pasos; son demasiados para verificarla simulando.");
+            }
+            int steps = playUntilConverged(Integer.MAX_VALUE, Long.MAX_VALUE);
+            if (steps != solution.getSteps()) {
+                throw new IllegalStateException("La forma cerrada predice " + solution.getSteps() + " pasos y la simulación usó " + steps + ".");
+            }
+            ChipEngine current = ensureTracking();
+            for (int id = 0, n = index.nodeCount(); id < n; id++) {
+                if (!current.getChips(id).equals(solution.getChips(id))) {
+                    throw new IllegalStateException("La forma cerrada predice " + solution.getChips(id) + " chips en el nodo '" + index.nodeName(id) + "' y la simulación terminó con " + current.getChips(id) + ".");
+                }
+            }
+        } else {
+            for (int id = 0, n = index.nodeCount(); id < n; id++) {
+                graph.setChips(index.nodeName(id), solution.getChips(id));
+            }
+        }
+        if (GameLog.isEnabled(GameLog.Level.INFO)) {
+            GameLog.log(GameLog.Level.INFO, "Diagrama de Dynkin {} reconocido: el juego converge en {} pasos (forma cerrada).", String.join(" + ", solution.getTypes()), solution.getSteps());
+        }
+        return solution;
+    }
+}
@@ -2,339 +2,19 @@ import javax.swing.*;
 import javax.swing.event.DocumentEvent; 
 import javax.swing.event.DocumentListener; 
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-
-class Edge {
-    public final String source;
-    public final String target;
-    public final int weight;
-
-    public Edge(String source, String target, int weight) {
-        this.source = source;
-        this.target = target;
-        this.weight = weight;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Edge edge = (Edge) o;
-        return weight == edge.weight &&
-               Objects.equals(source, edge.source) &&
-               Objects.equals(target, edge.target);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(source, target, weight);
-    }
-
-    @Override
-    public String toString() {
-        return source + "->" + target + ":" + weight;
-    }
-}
-
-class Graph {
-    private final Map<String, BigInteger> nodesChips;
-    private final Map<String, Map<String, Integer>> allDirectedEdges;
-    private final Set<Edge> explicitEdges;
-    private final Set<String> specialNodesLogicalNames;
-
-    public Graph() {
-        this.nodesChips = new ConcurrentHashMap<>();
-        this.allDirectedEdges = new ConcurrentHashMap<>();
-        this.explicitEdges = ConcurrentHashMap.newKeySet();
-        this.specialNodesLogicalNames = ConcurrentHashMap.newKeySet();
-    }
-
-    public void addNode(String nodeName) {
-        if (!nodesChips.containsKey(nodeName)) {
-            nodesChips.put(nodeName, BigInteger.ZERO);
-            allDirectedEdges.put(nodeName, new ConcurrentHashMap<>());
-            System.out.println("Nodo '" + nodeName + "' añadido al grafo lógico.");
-        } else {
-            System.out.println("Advertencia: El nodo '" + nodeName + "' ya existe en el grafo lógico.");
-        }
-    }
-
-    public String addSpecialNode(String targetNodeLogicalName) {
-        if (!nodesChips.containsKey(targetNodeLogicalName)) {
-            throw new IllegalArgumentException("El nodo destino '" + targetNodeLogicalName + "' no existe en el grafo.");
-        }
-        
-        String newSpecialNodeLogicalName = targetNodeLogicalName + "'"; 
-
-        if (nodesChips.containsKey(newSpecialNodeLogicalName)) {
-            throw new IllegalStateException("Ya existe un nodo especial asociado a '" + newSpecialNodeLogicalName + "'.");
-        }
-        
-        specialNodesLogicalNames.add(newSpecialNodeLogicalName);
-        nodesChips.put(newSpecialNodeLogicalName, BigInteger.ONE);
-        allDirectedEdges.put(newSpecialNodeLogicalName, new ConcurrentHashMap<>());
-
-        addDirectedEdgeInternal(newSpecialNodeLogicalName, targetNodeLogicalName, 1, true); 
-        System.out.println("Nodo especial '" + newSpecialNodeLogicalName + "' añadido, conectado directamente a '" + targetNodeLogicalName + "'.");
-        return newSpecialNodeLogicalName;
-    }
-
-    private void addDirectedEdgeInternal(String source, String target, int weight, boolean isExplicit) {
-        if (!nodesChips.containsKey(source) || !nodesChips.containsKey(target)) {
-            throw new IllegalArgumentException("Error: Ambos nodos (origen y destino) deben existir.");
-        }
-        if (source.equals(target)) {
-            System.out.println("Advertencia: No se permiten bucles (aristas a sí mismo).");
-            return;
-        }
-
-        allDirectedEdges.computeIfAbsent(source, k -> new ConcurrentHashMap<>()).put(target, weight);
-
-        if (isExplicit) {
-            explicitEdges.removeIf(e -> e.source.equals(source) && e.target.equals(target));
-            explicitEdges.add(new Edge(source, target, weight));
-        }
-    }
-
-    public void addDirectedEdge(String source, String target, int weight) {
-        if (isSpecialNode(target)) {
-             throw new IllegalArgumentException("No se pueden añadir aristas dirigidas hacia un nodo especial con este método. Los nodos especiales solo tienen una arista saliente hacia su nodo base.");
-        }
-        if (isSpecialNode(source) && !target.equals(getSpecialNodeConnectedTarget(source))) {
-            throw new IllegalArgumentException("Un nodo especial solo puede tener una arista saliente hacia su nodo base.");
-        }
-
-        addDirectedEdgeInternal(source, target, weight, true);
-
-        boolean hasExplicitReverse = false;
-        for (Edge e : explicitEdges) {
-            if (e.source.equals(target) && e.target.equals(source)) {
-                hasExplicitReverse = true;
-                break;
-            }
-        }
-
-        if (!hasExplicitReverse) {
-            addDirectedEdgeInternal(target, source, 1, false);
-            System.out.println("Arista dirigida '" + source + "' -> '" + target + "' con peso " + weight + " añadida. Inversa implícita (peso 1) también considerada.");
-        } else {
-             System.out.println("Arista dirigida '" + source + "' -> '" + target + "' con peso " + weight + " añadida. La inversa ya existe explícitamente.");
-        }
-    }
-
-    public void addUndirectedEdge(String node1, String node2) {
-        if (isSpecialNode(node1) || isSpecialNode(node2)) {
-            throw new IllegalArgumentException("No se pueden añadir aristas no dirigidas hacia/desde nodos especiales con este método.");
-        }
-        addDirectedEdge(node1, node2, 1);
-        addDirectedEdge(node2, node1, 1);
-        System.out.println("Arista no dirigida añadida entre '" + node1 + "' y '" + node2 + "'.");
-    }
-
-    public BigInteger getChips(String nodeName) {
-        return nodesChips.getOrDefault(nodeName, BigInteger.ZERO);
-    }
-
-    public void setChips(String nodeName, BigInteger chips) {
-        if (nodesChips.containsKey(nodeName)) {
-            nodesChips.put(nodeName, chips);
-        } else {
-            System.out.println("Error: No se pueden establecer chips para un nodo inexistente: '" + nodeName + "'.");
-        }
-    }
-
-    public Map<String, Integer> getIncomingEdgesWithWeights(String nodeName) {
-        Map<String, Integer> incoming = new ConcurrentHashMap<>();
-        for (String sourceNode : allDirectedEdges.keySet()) {
-            if (allDirectedEdges.get(sourceNode).containsKey(nodeName)) {
-                incoming.put(sourceNode, allDirectedEdges.get(sourceNode).get(nodeName));
-            }
-        }
-        return incoming;
-    }
-
-    public int getEdgeWeight(String source, String target) {
-        return allDirectedEdges.getOrDefault(source, Collections.emptyMap()).getOrDefault(target, 0);
-    }
-
-    public List<String> getAllNodes() {
-        return new ArrayList<>(nodesChips.keySet());
-    }
-
-    public Set<Edge> getExplicitEdges() {
-        return Collections.unmodifiableSet(explicitEdges);
-    }
-
-    public void clear() {
-        nodesChips.clear();
-        allDirectedEdges.clear();
-        explicitEdges.clear();
-        specialNodesLogicalNames.clear();
-        System.out.println("Grafo lógico limpiado.");
-    }
-
-    public boolean isSpecialNode(String nodeId) {
-        return specialNodesLogicalNames.contains(nodeId);
-    }
-
-    public Set<String> getSpecialNodesLogicalNames() {
-        return Collections.unmodifiableSet(specialNodesLogicalNames);
-    }
-
-    public String getSpecialNodeConnectedTarget(String specialNodeId) {
-        if (!isSpecialNode(specialNodeId)) {
-            return null;
-        }
-        Map<String, Integer> targets = allDirectedEdges.get(specialNodeId);
-        if (targets != null && !targets.isEmpty()) {
-            return targets.keySet().iterator().next();
-        }
-        return null;
-    }
-
-    public void removeNode(String nodeName) {
-        if (!nodesChips.containsKey(nodeName)) {
-            System.out.println("Advertencia: El nodo '" + nodeName + "' no existe para ser eliminado.");
-            return;
-        }
-
-        if (!isSpecialNode(nodeName)) {
-            String associatedSpecialNode = nodeName + "'";
-            if (isSpecialNode(associatedSpecialNode)) {
-                removeNode(associatedSpecialNode);
-            }
-        }
-        
-        allDirectedEdges.remove(nodeName); 
-        explicitEdges.removeIf(e -> e.source.equals(nodeName) || e.target.equals(nodeName));
-
-        for (String otherNode : allDirectedEdges.keySet()) {
-            allDirectedEdges.get(otherNode).remove(nodeName);
-        }
-
-        nodesChips.remove(nodeName);
-        specialNodesLogicalNames.remove(nodeName);
-
-        System.out.println("Nodo '" + nodeName + "' y sus aristas incidentes eliminados del grafo lógico.");
-    }
-}
-
-class KostantGame {
-    private final Graph graph;
-
-    public KostantGame(Graph graph) {
-        this.graph = graph;
-    }
-
-    private BigInteger getNeighborsSum(String node) {
-        BigInteger sum = BigInteger.ZERO;
-        for (Map.Entry<String, Integer> entry : graph.getIncomingEdgesWithWeights(node).entrySet()) {
-            String sourceNode = entry.getKey();
-            int weight = entry.getValue();
-            sum = sum.add(graph.getChips(sourceNode).multiply(BigInteger.valueOf(weight))); 
-        }
-        return sum;
-    }
-
-    public String getNodeState(String node) {
-        if (graph.isSpecialNode(node)) {
-            return "Happy";
-        }
-
-        BigInteger c_i = graph.getChips(node);
-        BigInteger sum_neighbors = getNeighborsSum(node);
-        
-        BigInteger two_c_i = c_i.multiply(BigInteger.TWO);
-
-        if (two_c_i.compareTo(sum_neighbors) < 0) {
-            return "Sad";
-        } else if (two_c_i.compareTo(sum_neighbors) > 0) {
-            return "Excited";
-        } else {
-            return "Happy";
-        }
-    }
-
-    public void initializeGame(String specifiedInitialNodeLogicalName) {
-        for (String node : graph.getAllNodes()) {
-            graph.setChips(node, BigInteger.ZERO);
-        }
-
-        if (!graph.getSpecialNodesLogicalNames().isEmpty()) {
-            for (String specialNode : graph.getSpecialNodesLogicalNames()) {
-                graph.setChips(specialNode, BigInteger.ONE);
-                System.out.println("Juego modificado inicializado. El nodo especial '" + specialNode + "' tiene 1 chip.");
-            }
-        } else {
-            if (!graph.getAllNodes().contains(specifiedInitialNodeLogicalName)) {
-                throw new IllegalArgumentException("El nodo inicial '" + specifiedInitialNodeLogicalName + "' no existe en el grafo.");
-            }
-            graph.setChips(specifiedInitialNodeLogicalName, BigInteger.ONE);
-            System.out.println("Juego estándar inicializado. El nodo '" + specifiedInitialNodeLogicalName + "' tiene 1 chip. Los demás tienen 0.");
-        }
-    }
-
-    public List<String> getUnhappyNodes() {
-        List<String> unhappyNodes = new ArrayList<>();
-        for (String node : graph.getAllNodes()) {
-            if (!graph.isSpecialNode(node) && getNodeState(node).equals("Sad")) {
-                unhappyNodes.add(node);
-            }
-        }
-        return unhappyNodes;
-    }
-
-    public BigInteger performReflection(String nodeToReflect) {
-        if (!graph.getAllNodes().contains(nodeToReflect)) {
-            throw new IllegalArgumentException("El nodo '" + nodeToReflect + "' no existe en el grafo.");
-        }
-        if (graph.isSpecialNode(nodeToReflect)) {
-            throw new IllegalStateException("El nodo especial es siempre feliz y no puede ser reflejado.");
-        }
-        if (!getNodeState(nodeToReflect).equals("Sad")) {
-            throw new IllegalStateException("El nodo '" + nodeToReflect + "' no está triste y no puede ser reflejado.");
-        }
-
-        BigInteger old_c_i = graph.getChips(nodeToReflect);
-        BigInteger sum_neighbors_c_j = getNeighborsSum(nodeToReflect);
-        
-        BigInteger new_c_i = old_c_i.negate().add(sum_neighbors_c_j);
-        graph.setChips(nodeToReflect, new_c_i);
-        System.out.println("Reflexión realizada en el nodo '" + nodeToReflect + "'. Los chips cambiaron de " + old_c_i + " a " + new_c_i + ".");
-        return new_c_i;
-    }
-
-    public int playUntilConverged(int maxSteps) {
-        int stepsTaken = 0;
-        while (stepsTaken < maxSteps) {
-            List<String> unhappyNodes = getUnhappyNodes();
-            if (unhappyNodes.isEmpty()) {
-                System.out.println("El juego ha convergido: No quedan nodos tristes.");
-                break;
-            }
-
-            String nodeToReflect = unhappyNodes.get(0);
-            try {
-                performReflection(nodeToReflect);
-            } catch (IllegalStateException e) {
-                System.err.println("Error inesperado durante la reflexión automática: " + e.getMessage());
-                break;
-            }
-            stepsTaken++;
-        }
-
-        if (stepsTaken >= maxSteps) {
-            System.out.println("El juego se detuvo después de " + maxSteps + " pasos (límite alcanzado). Todavía pueden quedar nodos tristes.");
-        }
-        return stepsTaken;
-    }
-}
+import java.util.function.Consumer;
 
 interface NodePlacementListener {
     void onNodePlaced(String nodeName);
@@ -356,7 +36,7 @@ interface NodeInteractionListener {
 class GraphPanel extends JPanel {
     private final Graph graph;
     private final KostantGame game;
-    private final Map<String, Point> nodePositions;
+    private final NodeGrid nodePositions;
     private final int NODE_SIZE = 60;
     private String pendingNodeName = null;
     private String firstNodeSelectedForEdge = null;
@@ -365,20 +45,37 @@ class GraphPanel extends JPanel {
     private int currentDirectedEdgeWeight = 1;
     private boolean isNodeMode = false;
     private boolean isDeleteMode = false;
+    private int positionsVersion;
+    private EdgeLayer edgeLayer;
+    private NodeLayer nodeLayer;
+    private final BitSet dirtyNodes = new BitSet();
+    private final int[] dirtyIds = new int[MAX_DIRTY_NODES];
+    private final int[] previousBounds = new int[4 * MAX_DIRTY_NODES];
+    private final Rectangle dirtyRegion = new Rectangle();
+    private final Rectangle paintArea = new Rectangle();
+    private final Consumer<String> nodePainter = this::paintNode;
+    private GraphIndex dirtyIndex;
+    private long dirtyChipsVersion;
+    private boolean dirtyFlushScheduled;
+    private Graphics2D paintingGraphics;
+    private NodeLayer paintingLayer;
+    private volatile KostantGame.Snapshot snapshot;
 
     private final NodePlacementListener nodePlacementListener;
     private final EdgeCreationListener edgeCreationListener;
     private final NodeInteractionListener nodeInteractionListener;
+    private final ReflectionListener reflectionListener = this::onReflection;
 
 
     public GraphPanel(Graph graph, KostantGame game, NodePlacementListener nodePlacementListener, EdgeCreationListener edgeCreationListener, NodeInteractionListener nodeInteractionListener) {
         this.graph = graph;
         this.game = game;
-        this.nodePositions = new ConcurrentHashMap<>();
+        this.nodePositions = new NodeGrid(NODE_SIZE);
         this.nodePlacementListener = nodePlacementListener;
         this.edgeCreationListener = edgeCreationListener;
         this.nodeInteractionListener = nodeInteractionListener;
         setBackground(new Color(60, 60, 60)); 
+        game.addReflectionListener(reflectionListener);
 
         addMouseListener(new MouseAdapter() {
             @Override
@@ -387,18 +84,15 @@ class GraphPanel extends JPanel {
                     int x = e.getX();
                     int y = e.getY();
 
-                    for (Map.Entry<String, Point> entry : nodePositions.entrySet()) {
-                        Point existingPos = entry.getValue();
-                        double distance = existingPos.distance(x, y);
-                        if (distance < NODE_SIZE * 0.9) {
-                            nodePlacementListener.onPlacementError("Ya hay un nodo muy cerca de esa posición. Elige otro lugar.");
-                            return;
-                        }
+                    if (nodePositions.anyWithin(x, y, NODE_SIZE * 0.9)) {
+                        nodePlacementListener.onPlacementError("Ya hay un nodo muy cerca de esa posición. Elige otro lugar.");
+                        return;
                     }
 
                     graph.addNode(pendingNodeName);
                     
                     nodePositions.put(pendingNodeName, new Point(x, y));
+                    positionsVersion++;
                     repaint();
                     nodePlacementListener.onNodePlaced(pendingNodeName);
                 } else if (isSimpleEdgeMode) {
@@ -502,14 +196,11 @@ class GraphPanel extends JPanel {
     }
 
     private String getNodeAt(Point p) {
-        for (Map.Entry<String, Point> entry : nodePositions.entrySet()) {
-            Point nodeCenter = entry.getValue();
-            double distance = nodeCenter.distance(p);
-            if (distance <= NODE_SIZE / 2) {
-                return entry.getKey();
-            }
-        }
-        return null;
+        return nodePositions.nearestWithin(p.x, p.y, NODE_SIZE / 2);
+    }
+
+    public List<String> getNodesIn(Rectangle area) {
+        return nodePositions.namesIn(area);
     }
 
     public void setPendingNodeName(String nodeName) {
@@ -624,11 +315,13 @@ class GraphPanel extends JPanel {
 
     public void addNodePosition(String logicalNodeName, Point p) {
         nodePositions.put(logicalNodeName, p);
+        positionsVersion++;
         repaint();
     }
 
     public void removeNodePosition(String logicalNodeName) {
         nodePositions.remove(logicalNodeName);
+        positionsVersion++;
         repaint();
     }
 
@@ -640,177 +333,371 @@ class GraphPanel extends JPanel {
         return NODE_SIZE;
     }
 
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g; 
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-
-        Set<String> drawnUndirectedPairs = new HashSet<>();
-
-        g2d.setColor(Color.LIGHT_GRAY);
-        g2d.setStroke(new BasicStroke(2));
-        for (Edge edge : graph.getExplicitEdges()) {
-            Point p1 = nodePositions.get(edge.source);
-            Point p2 = nodePositions.get(edge.target);
-            
-            if (p1 != null && p2 != null) {
-                boolean hasExplicitReverseWeight1 = false;
-                for (Edge reverseEdge : graph.getExplicitEdges()) {
-                    if (reverseEdge.source.equals(edge.target) && 
-                        reverseEdge.target.equals(edge.source) && 
-                        reverseEdge.weight == 1 &&
-                        edge.weight == 1) {
-                        hasExplicitReverseWeight1 = true;
-                        break;
+    static final class EdgeLayer {
+        final GraphIndex index;
+        final int positionsVersion;
+        final int width;
+        final int height;
+        final BufferedImage image;
+
+        EdgeLayer(GraphIndex index, int positionsVersion, int width, int height, BufferedImage image) {
+            this.index = index;
+            this.positionsVersion = positionsVersion;
+            this.width = width;
+            this.height = height;
+            this.image = image;
+        }
+    }
+
+    static final class NodeLayer {
+        final GraphIndex index;
+        final int positionsVersion;
+        final KostantGame.Snapshot snapshot;
+        long chipsVersion;
+        final int[] centers;
+        final boolean[] placed;
+        final Paint[] fills;
+        final String[] labels;
+        final String[] chipLabels;
+        final int[] labelPositions;
+        final int[] bounds;
+        int maxExtent;
+
+        NodeLayer(GraphIndex index, int positionsVersion, KostantGame.Snapshot snapshot, long chipsVersion) {
+            int n = index.nodeCount();
+            this.index = index;
+            this.positionsVersion = positionsVersion;
+            this.snapshot = snapshot;
+            this.chipsVersion = chipsVersion;
+            this.centers = new int[2 * n];
+            this.placed = new boolean[n];
+            this.fills = new Paint[n];
+            this.labels = new String[n];
+            this.chipLabels = new String[n];
+            this.labelPositions = new int[4 * n];
+            this.bounds = new int[4 * n];
+        }
+    }
+
+    private static final Font NODE_FONT = new Font("Dialog", Font.BOLD, 18);
+    private static final Font WEIGHT_FONT = new Font("SansSerif", Font.PLAIN, 12);
+    private static final BasicStroke THIN_STROKE = new BasicStroke(2);
+    private static final BasicStroke THICK_STROKE = new BasicStroke(4);
+    private static final Color SHADOW_COLOR = new Color(0, 0, 0, 100);
+    private static final Color SPECIAL_COLOR = Color.RED.darker();
+    private static final Color HAPPY_COLOR = new Color(102, 204, 102);
+    private static final Color SAD_COLOR = Color.BLUE.darker();
+    private static final Color EXCITED_COLOR = Color.GREEN.darker();
+    private static final int ARROW_SIZE = 10;
+    private static final int MAX_DIRTY_NODES = 256;
+
+    private EdgeLayer edgeLayer() {
+        GraphIndex index = graph.getIndex();
+        int width = Math.max(1, getWidth());
+        int height = Math.max(1, getHeight());
+        EdgeLayer current = edgeLayer;
+        if (current == null || current.index != index || current.positionsVersion != positionsVersion
+                || current.width != width || current.height != height) {
+            current = new EdgeLayer(index, positionsVersion, width, height, renderEdges(width, height));
+            edgeLayer = current;
+        }
+        return current;
+    }
+
+    private BufferedImage renderEdges(int width, int height) {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        BufferedImage image = configuration != null
+                ? configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.setStroke(THIN_STROKE);
+            FontMetrics weightMetrics = g2d.getFontMetrics(WEIGHT_FONT);
+            g2d.setFont(WEIGHT_FONT);
+
+            for (Edge edge : graph.getExplicitEdges()) {
+                Point p1 = nodePositions.get(edge.source);
+                Point p2 = nodePositions.get(edge.target);
+                if (p1 == null || p2 == null) {
+                    continue;
+                }
+                g2d.setColor(Color.LIGHT_GRAY);
+                Edge reverseEdge = graph.getExplicitEdge(edge.target, edge.source);
+                boolean isVisuallyUndirected = edge.weight == 1 && reverseEdge != null && reverseEdge.weight == 1
+                        && !graph.isSpecialNode(edge.source) && !graph.isSpecialNode(edge.target);
+                if (isVisuallyUndirected) {
+                    if (edge.source.compareTo(edge.target) < 0) {
+                        g2d.drawLine(p1.x, p1.y, p2.x, p2.y);
                     }
+                    continue;
                 }
-                
-                boolean isVisuallyUndirected = hasExplicitReverseWeight1 &&
-                                                !graph.isSpecialNode(edge.source) && 
-                                                !graph.isSpecialNode(edge.target);
-
-                String undirectedPairKey = (edge.source.compareTo(edge.target) < 0) ? 
-                                           (edge.source + "-" + edge.target) : 
-                                           (edge.target + "-" + edge.source);
-
-                if (isVisuallyUndirected && !drawnUndirectedPairs.contains(undirectedPairKey)) {
-                    drawSimpleLine(g2d, p1.x, p1.y, p2.x, p2.y);
-                    drawnUndirectedPairs.add(undirectedPairKey);
-                } else if (!isVisuallyUndirected) { 
-                    drawArrowedLine(g2d, p1.x, p1.y, p2.x, p2.y, edge.weight);
+
+                double angle = Math.atan2(p2.y - p1.y, p2.x - p1.x);
+                double dx = p2.x - p1.x;
+                double dy = p2.y - p1.y;
+                double distance = Math.sqrt(dx * dx + dy * dy);
+                double ratio = (distance - NODE_SIZE / 2.0) / distance;
+                int adjustedX2 = (int) (p1.x + dx * ratio);
+                int adjustedY2 = (int) (p1.y + dy * ratio);
+                g2d.drawLine(p1.x, p1.y, adjustedX2, adjustedY2);
+
+                Polygon arrowHead = new Polygon();
+                arrowHead.addPoint(0, 0);
+                arrowHead.addPoint(-ARROW_SIZE, ARROW_SIZE / 2);
+                arrowHead.addPoint(-ARROW_SIZE, -ARROW_SIZE / 2);
+                AffineTransform placement = AffineTransform.getTranslateInstance(adjustedX2, adjustedY2);
+                placement.rotate(angle);
+                g2d.fill(placement.createTransformedShape(arrowHead));
+
+                if (edge.weight > 1) {
+                    String weightText = String.valueOf(edge.weight);
+                    double perpendicularAngle = angle + Math.PI / 2;
+                    int offsetX = (int) (10 * Math.cos(perpendicularAngle));
+                    int offsetY = (int) (10 * Math.sin(perpendicularAngle));
+                    g2d.setColor(Color.WHITE);
+                    g2d.drawString(weightText,
+                            (p1.x + adjustedX2) / 2 + offsetX - weightMetrics.stringWidth(weightText) / 2,
+                            (p1.y + adjustedY2) / 2 + offsetY + weightMetrics.getHeight() / 4);
                 }
             }
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    private NodeLayer nodeLayer() {
+        KostantGame.Snapshot frozen = snapshot;
+        GraphIndex index = frozen != null ? frozen.getIndex() : graph.getIndex();
+        long chipsVersion = frozen != null ? -1 : graph.getChipsVersion();
+        NodeLayer current = nodeLayer;
+        if (current == null || current.index != index || current.positionsVersion != positionsVersion
+                || current.snapshot != frozen || current.chipsVersion != chipsVersion) {
+            current = new NodeLayer(index, positionsVersion, frozen, chipsVersion);
+            FontMetrics fm = getFontMetrics(NODE_FONT);
+            for (int id = 0; id < index.nodeCount(); id++) {
+                updateNode(current, id, fm);
+            }
+            nodeLayer = current;
         }
+        return current;
+    }
 
-        g2d.setFont(new Font("Dialog", Font.BOLD, 18)); 
-        for (String nodeName : graph.getAllNodes()) {
-            Point p = nodePositions.get(nodeName);
-            if (p == null) continue; 
-
-            Color baseColor;
-            if (graph.isSpecialNode(nodeName)) {
-                baseColor = Color.RED.darker();
-            } else {
-                String state = game.getNodeState(nodeName);
-                switch (state) {
-                    case "Happy":
-                        baseColor = new Color(102, 204, 102);
-                        break;
-                    case "Sad":
-                        baseColor = Color.BLUE.darker();
-                        break;
-                    case "Excited":
-                        baseColor = Color.GREEN.darker();
-                        break;
-                    default:
-                        baseColor = Color.GRAY;
-                        break;
-                }
+    private void updateNode(NodeLayer layer, int id, FontMetrics fm) {
+        Point p = nodePositions.get(layer.index.nodeName(id));
+        layer.placed[id] = p != null;
+        if (p == null) {
+            return;
+        }
+        Color baseColor;
+        if (layer.index.isSpecial(id)) {
+            baseColor = SPECIAL_COLOR;
+        } else {
+            switch (layer.snapshot != null ? layer.snapshot.getNodeState(id) : game.getNodeState(id)) {
+                case HAPPY:
+                    baseColor = HAPPY_COLOR;
+                    break;
+                case SAD:
+                    baseColor = SAD_COLOR;
+                    break;
+                case EXCITED:
+                    baseColor = EXCITED_COLOR;
+                    break;
+                default:
+                    baseColor = Color.GRAY;
+                    break;
             }
+        }
+        String displayedNodeName = getNodeDisplayString(layer.index.nodeName(id));
+        String chipsText = String.valueOf(layer.snapshot != null ? layer.snapshot.getChips(id) : game.getChips(id));
+        int nodeTextWidth = fm.stringWidth(displayedNodeName);
+        int chipsTextWidth = fm.stringWidth(chipsText);
+        int nodeTextY = p.y - fm.getHeight() / 2 + fm.getAscent() / 2 - (fm.getAscent() / 2 + 5);
+        int chipsTextY = p.y + fm.getHeight() / 2 + fm.getAscent() / 2 - (fm.getAscent() / 2 - 10);
+
+        layer.centers[2 * id] = p.x;
+        layer.centers[2 * id + 1] = p.y;
+        layer.fills[id] = new GradientPaint(
+            p.x - NODE_SIZE / 2, p.y - NODE_SIZE / 2, baseColor.brighter().brighter(),
+            p.x + NODE_SIZE / 2, p.y + NODE_SIZE / 2, baseColor.darker().darker());
+        layer.labels[id] = displayedNodeName;
+        layer.chipLabels[id] = chipsText;
+        layer.labelPositions[4 * id] = p.x - nodeTextWidth / 2;
+        layer.labelPositions[4 * id + 1] = nodeTextY;
+        layer.labelPositions[4 * id + 2] = p.x - chipsTextWidth / 2;
+        layer.labelPositions[4 * id + 3] = chipsTextY;
+
+        int halfWidth = Math.max(NODE_SIZE / 2 + 5, Math.max(nodeTextWidth, chipsTextWidth) / 2 + 1);
+        int top = Math.min(p.y - NODE_SIZE / 2 - 3, nodeTextY - fm.getAscent());
+        int bottom = Math.max(p.y + NODE_SIZE / 2 + 6, chipsTextY + fm.getDescent());
+        layer.bounds[4 * id] = p.x - halfWidth - 1;
+        layer.bounds[4 * id + 1] = top - 1;
+        layer.bounds[4 * id + 2] = 2 * halfWidth + 3;
+        layer.bounds[4 * id + 3] = bottom - top + 3;
+        layer.maxExtent = Math.max(layer.maxExtent, Math.max(halfWidth + 2, Math.max(p.y - top, bottom - p.y) + 2));
+    }
+
+    private void onReflection(GraphIndex index, int nodeId, BigInteger oldChips, BigInteger newChips) {
+        synchronized (dirtyNodes) {
+            dirtyNodes.set(nodeId);
+            for (int k = index.outStart(nodeId), end = index.outEnd(nodeId); k < end; k++) {
+                dirtyNodes.set(index.outTarget(k));
+            }
+            dirtyIndex = index;
+            dirtyChipsVersion = graph.getChipsVersion();
+            if (dirtyFlushScheduled) {
+                return;
+            }
+            dirtyFlushScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::repaintDirtyNodes);
+    }
 
-            g2d.setColor(new Color(0, 0, 0, 100));
-            g2d.fillOval(p.x - NODE_SIZE / 2 + 5, p.y - NODE_SIZE / 2 + 5, NODE_SIZE, NODE_SIZE);
-
-            Color brighterColor = baseColor.brighter().brighter();
-            Color darkerColor = baseColor.darker().darker();
-            
-            GradientPaint gradient = new GradientPaint(
-                p.x - NODE_SIZE / 2, p.y - NODE_SIZE / 2, brighterColor,
-                p.x + NODE_SIZE / 2, p.y + NODE_SIZE / 2, darkerColor);
-            g2d.setPaint(gradient);
-            g2d.fillOval(p.x - NODE_SIZE / 2, p.y - NODE_SIZE / 2, NODE_SIZE, NODE_SIZE);
-
-            if ((isSimpleEdgeMode || isDirectedEdgeMode) && nodeName.equals(firstNodeSelectedForEdge)) {
-                g2d.setColor(Color.CYAN);
-                g2d.setStroke(new BasicStroke(4));
-                g2d.drawOval(p.x - NODE_SIZE / 2 - 2, p.y - NODE_SIZE / 2 - 2, NODE_SIZE + 4, NODE_SIZE + 4);
-            } else if (isDeleteMode) {
-                g2d.setColor(Color.RED);
-                g2d.setStroke(new BasicStroke(4));
-                g2d.drawOval(p.x - NODE_SIZE / 2 - 2, p.y - NODE_SIZE / 2 - 2, NODE_SIZE + 4, NODE_SIZE + 4);
+    private void repaintDirtyNodes() {
+        NodeLayer layer = nodeLayer;
+        int count = applyDirtyNodes(layer);
+        if (count < 0) {
+            nodeLayer = null;
+            repaint();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int id = dirtyIds[i];
+            dirtyRegion.setBounds(layer.bounds[4 * id], layer.bounds[4 * id + 1], layer.bounds[4 * id + 2], layer.bounds[4 * id + 3]);
+            dirtyRegion.add(previousBounds[4 * i], previousBounds[4 * i + 1]);
+            dirtyRegion.add(previousBounds[4 * i] + previousBounds[4 * i + 2], previousBounds[4 * i + 1] + previousBounds[4 * i + 3]);
+            paintImmediately(dirtyRegion);
+        }
+    }
+
+    private int applyDirtyNodes(NodeLayer layer) {
+        GraphIndex index;
+        long chipsVersion;
+        int count = 0;
+        synchronized (dirtyNodes) {
+            dirtyFlushScheduled = false;
+            index = dirtyIndex;
+            chipsVersion = dirtyChipsVersion;
+            if (dirtyNodes.isEmpty()) {
+                return 0;
+            }
+            if (dirtyNodes.cardinality() > MAX_DIRTY_NODES || layer == null || layer.snapshot != null
+                    || layer.index != index || layer.positionsVersion != positionsVersion) {
+                count = -1;
             } else {
-                g2d.setColor(Color.WHITE);
-                g2d.setStroke(new BasicStroke(2));
-                g2d.drawOval(p.x - NODE_SIZE / 2, p.y - NODE_SIZE / 2, NODE_SIZE, NODE_SIZE);
+                for (int id = dirtyNodes.nextSetBit(0); id >= 0; id = dirtyNodes.nextSetBit(id + 1)) {
+                    if (layer.placed[id]) {
+                        dirtyIds[count++] = id;
+                    }
+                }
             }
+            dirtyNodes.clear();
+        }
+        if (count < 0) {
+            return count;
+        }
+        FontMetrics fm = getFontMetrics(NODE_FONT);
+        for (int i = 0; i < count; i++) {
+            int id = dirtyIds[i];
+            System.arraycopy(layer.bounds, 4 * id, previousBounds, 4 * i, 4);
+            updateNode(layer, id, fm);
+        }
+        layer.chipsVersion = Math.max(layer.chipsVersion, chipsVersion);
+        return count;
+    }
 
+    public void showSnapshot(KostantGame.Snapshot frozen) {
+        if (frozen != null && snapshot == null) {
+            game.removeReflectionListener(reflectionListener);
+        } else if (frozen == null && snapshot != null) {
+            game.addReflectionListener(reflectionListener);
+        }
+        snapshot = frozen;
+        if (frozen == null) {
+            nodeLayer = null;
+        }
+        repaint();
+    }
 
-            g2d.setColor(Color.WHITE);
-            
-            String displayedNodeName = getNodeDisplayString(nodeName); 
-            String chipsText = String.valueOf(graph.getChips(nodeName));
-
-            FontMetrics fm = g2d.getFontMetrics();
-            int nodeTextWidth = fm.stringWidth(displayedNodeName);
-            int chipsTextWidth = fm.stringWidth(chipsText);
+    public void invalidateRenderModel() {
+        edgeLayer = null;
+        nodeLayer = null;
+    }
 
-            int nodeTextX = p.x - nodeTextWidth / 2;
-            int nodeTextY = p.y - fm.getHeight() / 2 + fm.getAscent() / 2 - (fm.getAscent() / 2 + 5); 
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2d = (Graphics2D) g; 
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
 
-            int chipsTextX = p.x - chipsTextWidth / 2;
-            int chipsTextY = p.y + fm.getHeight() / 2 + fm.getAscent() / 2 - (fm.getAscent() / 2 - 10); 
+        g2d.drawImage(edgeLayer().image, 0, 0, null);
 
-            g2d.drawString(displayedNodeName, nodeTextX, nodeTextY);
-            g2d.drawString(chipsText, chipsTextX, chipsTextY);
+        if (applyDirtyNodes(nodeLayer) < 0) {
+            nodeLayer = null;
+        }
+        NodeLayer layer = nodeLayer();
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        paintArea.setBounds(clip.x - layer.maxExtent, clip.y - layer.maxExtent, clip.width + 2 * layer.maxExtent, clip.height + 2 * layer.maxExtent);
+        paintingGraphics = g2d;
+        paintingLayer = layer;
+        try {
+            g2d.setFont(NODE_FONT);
+            nodePositions.forEachIn(paintArea, nodePainter);
+        } finally {
+            paintingGraphics = null;
+            paintingLayer = null;
         }
-    }
-    
-    private void drawSimpleLine(Graphics2D g2d, int x1, int y1, int x2, int y2) {
-        g2d.drawLine(x1, y1, x2, y2);
     }
 
-    private void drawArrowedLine(Graphics2D g2d, int x1, int y1, int x2, int y2, int weight) {
-        int ARR_SIZE = 10;
-        
-        double angle = Math.atan2(y2 - y1, x2 - x1);
-        
-        double dx = x2 - x1;
-        double dy = y2 - y1;
-        double distance = Math.sqrt(dx * dx + dy * dy);
-        double ratio = (distance - NODE_SIZE / 2.0) / distance;
-        
-        int adjustedX2 = (int) (x1 + dx * ratio);
-        int adjustedY2 = (int) (y1 + dy * ratio);
-
-        g2d.drawLine(x1, y1, adjustedX2, adjustedY2);
-
-        AffineTransform tx = g2d.getTransform();
-        g2d.translate(adjustedX2, adjustedY2);
-        g2d.rotate(angle);
-        Polygon arrowHead = new Polygon();
-        arrowHead.addPoint(0, 0);
-        arrowHead.addPoint(-ARR_SIZE, ARR_SIZE / 2);
-        arrowHead.addPoint(-ARR_SIZE, -ARR_SIZE / 2);
-        g2d.fill(arrowHead);
-        g2d.setTransform(tx);
-
-        if (weight > 1) {
-            String weightText = String.valueOf(weight);
-            int midX = (x1 + adjustedX2) / 2;
-            int midY = (y1 + adjustedY2) / 2;
-            
-            double perpendicularAngle = angle + Math.PI / 2;
-            int offsetX = (int) (10 * Math.cos(perpendicularAngle));
-            int offsetY = (int) (10 * Math.sin(perpendicularAngle));
+    private void paintNode(String nodeName) {
+        Graphics2D g2d = paintingGraphics;
+        NodeLayer layer = paintingLayer;
+        int id = layer.index.nodeId(nodeName);
+        if (id < 0 || !layer.placed[id]) {
+            return;
+        }
+        int x = layer.centers[2 * id];
+        int y = layer.centers[2 * id + 1];
+
+        g2d.setColor(SHADOW_COLOR);
+        g2d.fillOval(x - NODE_SIZE / 2 + 5, y - NODE_SIZE / 2 + 5, NODE_SIZE, NODE_SIZE);
 
+        g2d.setPaint(layer.fills[id]);
+        g2d.fillOval(x - NODE_SIZE / 2, y - NODE_SIZE / 2, NODE_SIZE, NODE_SIZE);
+
+        if ((isSimpleEdgeMode || isDirectedEdgeMode) && nodeName.equals(firstNodeSelectedForEdge)) {
+            g2d.setColor(Color.CYAN);
+            g2d.setStroke(THICK_STROKE);
+            g2d.drawOval(x - NODE_SIZE / 2 - 2, y - NODE_SIZE / 2 - 2, NODE_SIZE + 4, NODE_SIZE + 4);
+        } else if (isDeleteMode) {
+            g2d.setColor(Color.RED);
+            g2d.setStroke(THICK_STROKE);
+            g2d.drawOval(x - NODE_SIZE / 2 - 2, y - NODE_SIZE / 2 - 2, NODE_SIZE + 4, NODE_SIZE + 4);
+        } else {
             g2d.setColor(Color.WHITE);
-            g2d.setFont(new Font("SansSerif", Font.PLAIN, 12));
-            FontMetrics fm = g2d.getFontMetrics();
-            int textWidth = fm.stringWidth(weightText);
-            int textHeight = fm.getHeight();
-            
-            g2d.drawString(weightText, midX + offsetX - textWidth / 2, midY + offsetY + textHeight / 4);
+            g2d.setStroke(THIN_STROKE);
+            g2d.drawOval(x - NODE_SIZE / 2, y - NODE_SIZE / 2, NODE_SIZE, NODE_SIZE);
         }
+
+        g2d.setColor(Color.WHITE);
+        g2d.drawString(layer.labels[id], layer.labelPositions[4 * id], layer.labelPositions[4 * id + 1]);
+        g2d.drawString(layer.chipLabels[id], layer.labelPositions[4 * id + 2], layer.labelPositions[4 * id + 3]);
     }
 
     public void updateGraphDisplay() {
+        nodeLayer = null;
         repaint();
     }
     
     public void resetNodePositions() {
         nodePositions.clear();
+        positionsVersion++;
         repaint();
     }
 }
@@ -834,9 +721,16 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
     private final JButton initializeGameButton;
     private final JButton reflectButton;
     private final JButton playFullButton; 
+    private final JButton turboButton;
+    private final JSpinner turboStepBudgetSpinner;
+    private final JSpinner turboTimeBudgetSpinner;
+    private final JLabel turboStatusLabel;
     private final JButton stopAutoPlayButton; 
     private final JButton newGraphButton;
     private final JButton resetGameConfigButton;
+    private final JButton recordTrajectoryButton;
+    private final JButton openTrajectoryButton;
+    private final JButton resultsStoreButton;
 
     private JComboBox<String> targetNodeSelector;
     private JButton addSpecialNodeButton;
@@ -844,14 +738,33 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
     private int nodeCounter = 1;
     private boolean isGameActive = false;
     private SwingWorker<Integer, String> autoPlayWorker; 
+    private SwingWorker<Integer, Void> turboWorker;
+    private javax.swing.Timer turboFrameTimer;
+    private volatile int turboSteps;
+    private volatile boolean turboSnapshotRequested;
+    private volatile KostantGame.Snapshot turboSnapshot;
+    private TrajectoryRecorder trajectoryRecorder;
+    private ConvergenceCache resultCache;
     private volatile int currentDelayMillis = 500; 
     private final int MIN_DELAY_MILLIS = 50; 
+    private final int TURBO_FRAME_MILLIS = 16;
+    private final int AUTO_PLAY_MAX_STEPS = 500;
 
     public KostantGameGUI() {
         setTitle("Juego de Kostant modificado");
         setSize(1000, 700);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (turboWorker != null) {
+                    turboWorker.cancel(false);
+                }
+                stopTrajectoryRecording();
+                closeResultsStore();
+            }
+        });
 
         graph = new Graph();
         game = new KostantGame(graph);
@@ -1013,12 +926,74 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
         controlPanel.add(playFullButton);
         controlPanel.add(Box.createVerticalStrut(5)); 
 
+        JPanel turboBudgetPanel = new JPanel();
+        turboBudgetPanel.setLayout(new BoxLayout(turboBudgetPanel, BoxLayout.X_AXIS));
+        turboBudgetPanel.setBackground(new Color(40,40,40));
+
+        JLabel turboStepsLabel = new JLabel("Pasos máx.:");
+        turboStepsLabel.setForeground(Color.WHITE);
+        turboBudgetPanel.add(turboStepsLabel);
+        turboBudgetPanel.add(Box.createHorizontalStrut(5));
+        turboStepBudgetSpinner = new JSpinner(new SpinnerNumberModel(1_000_000, 1, Integer.MAX_VALUE, 100_000));
+        turboStepBudgetSpinner.setMaximumSize(new Dimension(110, turboStepBudgetSpinner.getPreferredSize().height));
+        turboBudgetPanel.add(turboStepBudgetSpinner);
+        turboBudgetPanel.add(Box.createHorizontalStrut(10));
+
+        JLabel turboTimeLabel = new JLabel("Tiempo (s):");
+        turboTimeLabel.setForeground(Color.WHITE);
+        turboBudgetPanel.add(turboTimeLabel);
+        turboBudgetPanel.add(Box.createHorizontalStrut(5));
+        turboTimeBudgetSpinner = new JSpinner(new SpinnerNumberModel(30, 1, 3600, 5));
+        turboTimeBudgetSpinner.setMaximumSize(new Dimension(70, turboTimeBudgetSpinner.getPreferredSize().height));
+        turboBudgetPanel.add(turboTimeBudgetSpinner);
+        turboBudgetPanel.add(Box.createHorizontalGlue());
+
+        controlPanel.add(turboBudgetPanel);
+        controlPanel.add(Box.createVerticalStrut(5));
+
+        turboButton = new JButton("Modo Turbo");
+        turboButton.setBackground(new Color(50, 110, 160));
+        turboButton.setForeground(Color.WHITE);
+        turboButton.setFocusPainted(false);
+        turboButton.addActionListener(e -> playTurbo());
+        controlPanel.add(turboButton);
+        controlPanel.add(Box.createVerticalStrut(5));
+
+        turboStatusLabel = new JLabel(" ");
+        turboStatusLabel.setForeground(Color.WHITE);
+        controlPanel.add(turboStatusLabel);
+        controlPanel.add(Box.createVerticalStrut(5));
+
         stopAutoPlayButton = new JButton("Detener Automático");
         stopAutoPlayButton.setBackground(new Color(220, 50, 50)); 
         stopAutoPlayButton.setForeground(Color.WHITE);
         stopAutoPlayButton.setFocusPainted(false);
         stopAutoPlayButton.addActionListener(e -> stopAutoPlay());
         controlPanel.add(stopAutoPlayButton);
+        controlPanel.add(Box.createVerticalStrut(5));
+
+        recordTrajectoryButton = new JButton("Grabar Trayectoria");
+        recordTrajectoryButton.setBackground(new Color(120, 60, 160));
+        recordTrajectoryButton.setForeground(Color.WHITE);
+        recordTrajectoryButton.setFocusPainted(false);
+        recordTrajectoryButton.addActionListener(e -> toggleTrajectoryRecording());
+        controlPanel.add(recordTrajectoryButton);
+        controlPanel.add(Box.createVerticalStrut(5));
+
+        openTrajectoryButton = new JButton("Abrir Trayectoria");
+        openTrajectoryButton.setBackground(new Color(120, 60, 160));
+        openTrajectoryButton.setForeground(Color.WHITE);
+        openTrajectoryButton.setFocusPainted(false);
+        openTrajectoryButton.addActionListener(e -> openTrajectory());
+        controlPanel.add(openTrajectoryButton);
+        controlPanel.add(Box.createVerticalStrut(5));
+
+        resultsStoreButton = new JButton("Abrir Almacén de Resultados");
+        resultsStoreButton.setBackground(new Color(120, 60, 160));
+        resultsStoreButton.setForeground(Color.WHITE);
+        resultsStoreButton.setFocusPainted(false);
+        resultsStoreButton.addActionListener(e -> toggleResultsStore());
+        controlPanel.add(resultsStoreButton);
         controlPanel.add(Box.createVerticalStrut(10));
 
 
@@ -1357,6 +1332,10 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
 
     @Override
     public void onNodeClicked(String nodeLogicalName) {
+        if (turboWorker != null) {
+            showMessage("El modo turbo está en ejecución. Espera a que termine o detenlo.", "Warning");
+            return;
+        }
         if (graphPanel.isDeleteMode()) {
             if (nodeLogicalName == null) {
                 toggleDeleteMode();
@@ -1379,10 +1358,9 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
         } else if (!graphPanel.isNodeMode() && !graphPanel.isSimpleEdgeMode() && !graphPanel.isDirectedEdgeMode() && !graphPanel.isDeleteMode() && isGameActive) {
             if (graph.isSpecialNode(nodeLogicalName)) {
                 showMessage("El nodo '" + graphPanel.getNodeDisplayString(nodeLogicalName) + "' es un nodo siempre feliz y no puede ser reflejado.", "Warning");
-            } else if (game.getNodeState(nodeLogicalName).equals("Sad")) { 
+            } else if (game.getNodeState(nodeLogicalName) == NodeState.SAD) { 
                 try {
                     game.performReflection(nodeLogicalName);
-                    graphPanel.updateGraphDisplay();
                     showMessage("Reflexión realizada en el nodo '" + graphPanel.getNodeDisplayString(nodeLogicalName) + "' por clic.", "Info");
                     setControlsEnabled(true);
                 }
@@ -1407,11 +1385,15 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             
             isGameActive = true;
 
+            FiniteTypeCheck.Verdict finiteType = game.getFiniteTypeVerdict();
             if (!graph.getSpecialNodesLogicalNames().isEmpty()) {
                 showMessage("Juego modificado inicializado. Todos los nodos especiales tienen 1 chip.", "Info");
             } else {
                  showMessage("Juego estándar inicializado con nodo '" + graphPanel.getNodeDisplayString(initialNodeLogicalName) + "'.", "Info");
             }
+            if (finiteType != null) {
+                showMessage(finiteType.getMessage(), "Warning");
+            }
             
             setControlsEnabled(true);
         }
@@ -1428,16 +1410,14 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             return;
         }
 
-        List<String> unhappyNodes = game.getUnhappyNodes();
-        if (unhappyNodes.isEmpty()) {
+        String nodeToReflect = game.getNextUnhappyNode();
+        if (nodeToReflect == null) {
             showMessage("No hay nodos tristes para reflejar. El juego ha convergido.", "Info"); 
             return;
         }
-        
-        String nodeToReflect = unhappyNodes.get(0); 
+
         try {
             game.performReflection(nodeToReflect);
-            graphPanel.updateGraphDisplay();
             showMessage("Reflexión realizada en el nodo '" + graphPanel.getNodeDisplayString(nodeToReflect) + "'.", "Info");
             setControlsEnabled(true); 
         }
@@ -1451,17 +1431,34 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             showMessage("El juego no está inicializado. Inicialízalo primero para jugar automático.", "Warning");
             return;
         }
-        if (game.getUnhappyNodes().isEmpty()) {
+        if (!game.hasUnhappyNodes()) {
             showMessage("No hay nodos tristes. El juego ya está convergido.", "Info"); 
             return;
         }
         
+        if (turboWorker != null) {
+            showMessage("El modo turbo está en ejecución. Deténlo antes de jugar automático.", "Warning");
+            return;
+        }
         if (autoPlayWorker != null && !autoPlayWorker.isDone()) {
             currentDelayMillis = Math.max(MIN_DELAY_MILLIS, currentDelayMillis / 2);
             showMessage("Juego automático acelerado. Retraso: " + currentDelayMillis + "ms", "Info");
             return;
         }
 
+        FiniteTypeCheck.Verdict finiteType = game.getFiniteTypeVerdict();
+        if (finiteType != null) {
+            int dialogResult = JOptionPane.showConfirmDialog(this,
+                                finiteType.getMessage() + "\n¿Jugar automático de todos modos, como máximo " + AUTO_PLAY_MAX_STEPS + " pasos?",
+                                "Grafo de tipo " + finiteType.getType().getLabel(), JOptionPane.YES_NO_OPTION);
+            if (dialogResult != JOptionPane.YES_OPTION) {
+                showMessage("Juego automático cancelado. " + finiteType.getMessage(), "Warning");
+                return;
+            }
+        }
+
+        final ConvergenceCache cache = resultCache;
+
         setControlsEnabled(false); 
         newGraphButton.setEnabled(true); 
         resetGameConfigButton.setEnabled(true);
@@ -1472,26 +1469,34 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
         currentDelayMillis = 500; 
 
         autoPlayWorker = new SwingWorker<Integer, String>() {
+            private ConvergenceCache.CanonicalForm startForm;
+            private ConvergenceCache.Result stored;
+
             @Override
             protected Integer doInBackground() throws Exception {
+                if (cache != null) {
+                    startForm = game.canonicalForm(cache);
+                    stored = game.applyCachedResult(cache, startForm, Integer.MAX_VALUE);
+                    if (stored != null) {
+                        return stored.steps;
+                    }
+                }
                 int stepsTaken = 0;
-                int maxSteps = 500;
+                int maxSteps = AUTO_PLAY_MAX_STEPS;
 
                 while (stepsTaken < maxSteps) {
                     if (isCancelled()) {
                         break; 
                     }
 
-                    List<String> unhappyNodes = game.getUnhappyNodes();
-                    if (unhappyNodes.isEmpty()) {
+                    String nodeToReflect = game.getNextUnhappyNode();
+                    if (nodeToReflect == null) {
                         publish("El juego ha convergido: No quedan nodos tristes.");
                         break;
                     }
 
-                    String nodeToReflect = unhappyNodes.get(0);
                     try {
                         game.performReflection(nodeToReflect);
-                        publish("");
                         
                         if (isCancelled()) {
                             break;
@@ -1508,6 +1513,9 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
                         break;
                     }
                     stepsTaken++;
+                    if (game.getVerdict() != null) {
+                        break;
+                    }
                 }
                 if (stepsTaken >= maxSteps) {
                     publish("El juego se detuvo después de " + maxSteps + " pasos (límite alcanzado). Todavía pueden quedar nodos tristes.");
@@ -1518,11 +1526,8 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             @Override
             protected void process(List<String> chunks) {
                 for (String messageChunk : chunks) {
-                    if (!messageChunk.isEmpty()) {
-                        showMessage(messageChunk, "Info");
-                    }
+                    showMessage(messageChunk, "Info");
                 }
-                graphPanel.updateGraphDisplay();
             }
 
             @Override
@@ -1536,8 +1541,15 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
 
                     Integer stepsTaken = get();
                     List<String> remainingUnhappy = game.getUnhappyNodes();
-                    if (remainingUnhappy.isEmpty()) {
+                    if (stored != null) {
+                        showMessage("Resultado tomado del almacén (motor " + stored.engine + "): el juego converge en " + stored.steps + " pasos.", "Success");
+                    } else if (remainingUnhappy.isEmpty()) {
                         showMessage("Juego automático completado en " + stepsTaken + " pasos. Todos los nodos están felices/emocionados.", "Success"); 
+                        if (startForm != null) {
+                            game.storeResult(cache, startForm, stepsTaken, "gui");
+                        }
+                    } else if (game.getVerdict() != null) {
+                        showMessage("Juego automático detenido después de " + stepsTaken + " pasos. " + game.getVerdict().getMessage(), "Warning");
                     } else {
                         showMessage("Juego automático detenido después de " + stepsTaken + " pasos. Aún quedan nodos tristes: " + remainingUnhappy + ".", "Warning"); 
                     }
@@ -1554,8 +1566,146 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
         autoPlayWorker.execute();
     }
 
+    private void playTurbo() {
+        if (!isGameActive) {
+            showMessage("El juego no está inicializado. Inicialízalo primero para jugar en modo turbo.", "Warning");
+            return;
+        }
+        if (turboWorker != null || (autoPlayWorker != null && !autoPlayWorker.isDone())) {
+            showMessage("Ya hay un juego automático en ejecución.", "Warning");
+            return;
+        }
+        if (!game.hasUnhappyNodes()) {
+            showMessage("No hay nodos tristes. El juego ya está convergido.", "Info");
+            return;
+        }
+        FiniteTypeCheck.Verdict finiteType = game.getFiniteTypeVerdict();
+        if (finiteType != null) {
+            showMessage("Modo turbo rechazado. " + finiteType.getMessage(), "Warning");
+            return;
+        }
+
+        final ConvergenceCache cache = resultCache;
+
+        final int stepBudget = (Integer) turboStepBudgetSpinner.getValue();
+        final long timeBudgetNanos = ((Integer) turboTimeBudgetSpinner.getValue()) * 1_000_000_000L;
+
+        setControlsEnabled(false);
+        turboStepBudgetSpinner.setEnabled(false);
+        turboTimeBudgetSpinner.setEnabled(false);
+        recordTrajectoryButton.setEnabled(false);
+        openTrajectoryButton.setEnabled(false);
+        resultsStoreButton.setEnabled(false);
+        newGraphButton.setEnabled(false);
+        resetGameConfigButton.setEnabled(false);
+        stopAutoPlayButton.setEnabled(true);
+        showMessage("Modo turbo iniciado: hasta " + stepBudget + " pasos o " + timeBudgetNanos / 1_000_000_000L + " s.", "Info");
+
+        turboSteps = 0;
+        turboSnapshot = null;
+        turboSnapshotRequested = false;
+        graphPanel.showSnapshot(game.snapshot());
+
+        final long startNanos = System.nanoTime();
+        turboFrameTimer = new javax.swing.Timer(TURBO_FRAME_MILLIS, new ActionListener() {
+            private long lastNanos = startNanos;
+            private int lastSteps;
+            private double rate;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                KostantGame.Snapshot frame = turboSnapshot;
+                if (frame != null) {
+                    turboSnapshot = null;
+                    graphPanel.showSnapshot(frame);
+                }
+                turboSnapshotRequested = true;
+
+                long now = System.nanoTime();
+                int steps = turboSteps;
+                if (now - lastNanos >= 250_000_000L) {
+                    rate = (steps - lastSteps) * 1e9 / (now - lastNanos);
+                    lastNanos = now;
+                    lastSteps = steps;
+                }
+                turboStatusLabel.setText(String.format("Turbo: %,d / %,d pasos (%.1f%%) · %,.0f refl/s · %.1f s",
+                        steps, stepBudget, 100.0 * steps / stepBudget, rate, (now - startNanos) / 1e9));
+            }
+        });
+        turboFrameTimer.start();
+
+        turboWorker = new SwingWorker<Integer, Void>() {
+            private ConvergenceCache.CanonicalForm startForm;
+            private ConvergenceCache.Result stored;
+
+            @Override
+            protected Integer doInBackground() {
+                if (cache != null) {
+                    startForm = game.canonicalForm(cache);
+                    stored = game.applyCachedResult(cache, startForm, Integer.MAX_VALUE);
+                    if (stored != null) {
+                        return stored.steps;
+                    }
+                }
+                return game.playUntilConverged(stepBudget, timeBudgetNanos, stepsTaken -> {
+                    turboSteps = stepsTaken;
+                    if (turboSnapshotRequested) {
+                        turboSnapshotRequested = false;
+                        turboSnapshot = game.snapshot();
+                    }
+                    return !isCancelled();
+                });
+            }
+
+            @Override
+            protected void done() {
+                turboFrameTimer.stop();
+                turboFrameTimer = null;
+                turboWorker = null;
+                turboSnapshot = null;
+                graphPanel.showSnapshot(null);
+                turboStepBudgetSpinner.setEnabled(true);
+                turboTimeBudgetSpinner.setEnabled(true);
+                recordTrajectoryButton.setEnabled(true);
+                openTrajectoryButton.setEnabled(true);
+                resultsStoreButton.setEnabled(true);
+                try {
+                    double seconds = (System.nanoTime() - startNanos) / 1e9;
+                    int stepsTaken = isCancelled() ? turboSteps : get();
+                    turboStatusLabel.setText(String.format("Turbo: %,d pasos en %.2f s (%,.0f refl/s)", stepsTaken, seconds, stepsTaken / Math.max(seconds, 1e-9)));
+                    List<String> remainingUnhappy = game.getUnhappyNodes();
+                    if (isCancelled()) {
+                        showMessage("Modo turbo cancelado después de unos " + stepsTaken + " pasos.", "Warning");
+                    } else if (stored != null) {
+                        showMessage("Resultado tomado del almacén (motor " + stored.engine + "): el juego converge en " + stored.steps + " pasos.", "Success");
+                    } else if (remainingUnhappy.isEmpty()) {
+                        showMessage("Modo turbo completado en " + stepsTaken + " pasos. Todos los nodos están felices/emocionados.", "Success");
+                        if (startForm != null) {
+                            game.storeResult(cache, startForm, stepsTaken, "turbo");
+                        }
+                    } else if (game.getVerdict() != null) {
+                        showMessage("Modo turbo detenido después de " + stepsTaken + " pasos. " + game.getVerdict().getMessage(), "Warning");
+                    } else {
+                        showMessage("Modo turbo detenido después de " + stepsTaken + " pasos (presupuesto agotado). Aún quedan " + remainingUnhappy.size() + " nodos tristes.", "Warning");
+                    }
+                }
+                catch (Exception e) {
+                    showMessage("Error al ejecutar el modo turbo: " + e.getMessage(), "Error");
+                    e.printStackTrace();
+                } finally {
+                    graphPanel.updateGraphDisplay();
+                    setControlsEnabled(true);
+                }
+            }
+        };
+        turboWorker.execute();
+    }
+
     private void stopAutoPlay() {
-        if (autoPlayWorker != null && !autoPlayWorker.isDone()) {
+        if (turboWorker != null) {
+            turboWorker.cancel(false);
+            showMessage("Se ha solicitado detener el modo turbo.", "Info");
+        } else if (autoPlayWorker != null && !autoPlayWorker.isDone()) {
             autoPlayWorker.cancel(true);
             showMessage("Se ha solicitado detener el juego automático.", "Info");
         } else {
@@ -1563,6 +1713,146 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
         }
     }
 
+    private void toggleTrajectoryRecording() {
+        if (turboWorker != null) {
+            showMessage("Detén el modo turbo antes de cambiar la grabación de la trayectoria.", "Warning");
+            return;
+        }
+        if (trajectoryRecorder != null) {
+            stopTrajectoryRecording();
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Guardar trayectoria");
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            trajectoryRecorder = TrajectoryRecorder.start(chooser.getSelectedFile().toPath(), game, TrajectoryRecorder.DEFAULT_KEYFRAME_INTERVAL);
+            recordTrajectoryButton.setText("Detener Grabación");
+            showMessage("Grabando la trayectoria en '" + chooser.getSelectedFile().getName() + "'.", "Info");
+        } catch (IOException e) {
+            showMessage("Error al iniciar la grabación: " + e.getMessage(), "Error");
+        }
+    }
+
+    private void stopTrajectoryRecording() {
+        if (trajectoryRecorder == null) {
+            return;
+        }
+        TrajectoryRecorder recorder = trajectoryRecorder;
+        trajectoryRecorder = null;
+        recordTrajectoryButton.setText("Grabar Trayectoria");
+        try {
+            recorder.detach(game);
+            showMessage("Grabación finalizada con " + recorder.getSteps() + " reflexiones.", "Success");
+        } catch (IOException e) {
+            showMessage("Error al cerrar la grabación: " + e.getMessage(), "Error");
+        }
+    }
+
+    private void openTrajectory() {
+        if (turboWorker != null || (autoPlayWorker != null && !autoPlayWorker.isDone())) {
+            showMessage("Detén el juego automático antes de reproducir una trayectoria.", "Warning");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Abrir trayectoria");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final TrajectoryReplayer replayer;
+        try {
+            replayer = TrajectoryReplayer.open(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            showMessage("Error al abrir la trayectoria: " + e.getMessage(), "Error");
+            return;
+        }
+
+        long totalSteps = replayer.getTotalSteps();
+        int sliderMax = (int) Math.min(totalSteps, Integer.MAX_VALUE);
+        JDialog dialog = new JDialog(this, "Trayectoria: " + chooser.getSelectedFile().getName(), false);
+        JSlider slider = new JSlider(0, sliderMax, 0);
+        JLabel stepLabel = new JLabel("Paso 0 / " + totalSteps);
+        slider.addChangeListener(e -> {
+            int step = slider.getValue();
+            try {
+                replayer.applyTo(graph, step);
+                stepLabel.setText("Paso " + step + " / " + totalSteps);
+                graphPanel.updateGraphDisplay();
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                showMessage("Error al reproducir la trayectoria: " + ex.getMessage(), "Error");
+            }
+        });
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                try {
+                    replayer.close();
+                } catch (IOException ex) {
+                    showMessage("Error al cerrar la trayectoria: " + ex.getMessage(), "Error");
+                }
+                setControlsEnabled(true);
+            }
+        });
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setLayout(new BorderLayout(5, 5));
+        dialog.add(slider, BorderLayout.CENTER);
+        dialog.add(stepLabel, BorderLayout.SOUTH);
+        dialog.setSize(500, 100);
+        dialog.setLocationRelativeTo(this);
+
+        try {
+            replayer.applyTo(graph, 0);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            showMessage("La trayectoria no corresponde al grafo actual: " + e.getMessage(), "Error");
+            dialog.dispose();
+            return;
+        }
+        graphPanel.updateGraphDisplay();
+        showMessage("Trayectoria de " + totalSteps + " reflexiones cargada. Usa el deslizador para recorrerla.", "Info");
+        dialog.setVisible(true);
+    }
+
+    private void toggleResultsStore() {
+        if (turboWorker != null) {
+            showMessage("Detén el modo turbo antes de abrir o cerrar el almacén de resultados.", "Warning");
+            return;
+        }
+        if (resultCache != null) {
+            closeResultsStore();
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Abrir almacén de resultados");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            ResultsStore store = ResultsStore.open(chooser.getSelectedFile().toPath());
+            resultCache = new ConvergenceCache(ConvergenceCache.DEFAULT_MAX_ENTRIES, store);
+            resultsStoreButton.setText("Cerrar Almacén de Resultados");
+            showMessage("Almacén '" + chooser.getSelectedFile().getName() + "' abierto con " + store.size() + " resultados. El juego automático lo consultará antes de simular.", "Info");
+        } catch (IOException e) {
+            showMessage("Error al abrir el almacén de resultados: " + e.getMessage(), "Error");
+        }
+    }
+
+    private void closeResultsStore() {
+        if (resultCache == null) {
+            return;
+        }
+        ResultsStore store = resultCache.getStore();
+        resultCache = null;
+        resultsStoreButton.setText("Abrir Almacén de Resultados");
+        try {
+            store.close();
+            showMessage("Almacén de resultados cerrado.", "Info");
+        } catch (IOException e) {
+            showMessage("Error al cerrar el almacén de resultados: " + e.getMessage(), "Error");
+        }
+    }
+
     private void resetGameConfiguration() {
         if (autoPlayWorker != null && !autoPlayWorker.isDone()) {
             autoPlayWorker.cancel(true);
@@ -1592,6 +1882,7 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             initializeGameButton.setEnabled(false);
             reflectButton.setEnabled(false);
             playFullButton.setEnabled(false);
+            turboButton.setEnabled(false);
             stopAutoPlayButton.setEnabled(false);
             addSpecialNodeButton.setEnabled(false);
             targetNodeSelector.setEnabled(false);
@@ -1608,6 +1899,7 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             initializeGameButton.setEnabled(false);
             reflectButton.setEnabled(false);
             playFullButton.setEnabled(false);
+            turboButton.setEnabled(false);
             stopAutoPlayButton.setEnabled(false);
             addSpecialNodeButton.setEnabled(false);
             targetNodeSelector.setEnabled(false);
@@ -1623,6 +1915,7 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             initializeGameButton.setEnabled(false);
             reflectButton.setEnabled(false);
             playFullButton.setEnabled(false);
+            turboButton.setEnabled(false);
             stopAutoPlayButton.setEnabled(false);
             addSpecialNodeButton.setEnabled(false);
             targetNodeSelector.setEnabled(false);
@@ -1639,6 +1932,7 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             initializeGameButton.setEnabled(false);
             reflectButton.setEnabled(false);
             playFullButton.setEnabled(false);
+            turboButton.setEnabled(false);
             stopAutoPlayButton.setEnabled(false);
             addSpecialNodeButton.setEnabled(false);
             targetNodeSelector.setEnabled(false);
@@ -1687,10 +1981,11 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
             if (isGameActive) {
                 initializeGameButton.setEnabled(false);
                 initialNodeInput.setEnabled(false);
-                boolean hasUnhappyNodes = !game.getUnhappyNodes().isEmpty();
+                boolean hasUnhappyNodes = game.hasUnhappyNodes();
                 reflectButton.setEnabled(hasUnhappyNodes);
                 playFullButton.setEnabled(hasUnhappyNodes);
-                stopAutoPlayButton.setEnabled(autoPlayWorker != null && !autoPlayWorker.isDone());
+                turboButton.setEnabled(hasUnhappyNodes);
+                stopAutoPlayButton.setEnabled((autoPlayWorker != null && !autoPlayWorker.isDone()) || turboWorker != null);
                 toggleNodeModeButton.setEnabled(false); 
                 toggleSimpleEdgeModeButton.setEnabled(false);
                 toggleDirectedEdgeModeButton.setEnabled(false);
@@ -1710,6 +2005,7 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
 
                 reflectButton.setEnabled(false);
                 playFullButton.setEnabled(false);
+                turboButton.setEnabled(false);
                 stopAutoPlayButton.setEnabled(false);
                 resetGameConfigButton.setEnabled(enabled && hasAnyNodes);
             }
@@ -1722,6 +2018,10 @@ public class KostantGameGUI extends JFrame implements NodePlacementListener, Edg
         if (autoPlayWorker != null && !autoPlayWorker.isDone()) {
             autoPlayWorker.cancel(true);
         }
+        if (turboWorker != null) {
+            turboWorker.cancel(false);
+        }
+        stopTrajectoryRecording();
 
         graphPanel.resetNodePositions(); 
         graphPanel.setNodeMode(false);
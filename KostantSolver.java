@@ -0,0 +1,445 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class KostantSolver {
+    static final String BINARY_EXTENSION = ".kgb";
+
+    static final class GameDescription {
+        final Graph graph = new Graph();
+        final Set<String> declaredNodes = new LinkedHashSet<>();
+        String initialNode;
+    }
+
+    static final class SolverResult {
+        final long steps;
+        final boolean converged;
+        final long elapsedNanos;
+        final DivergenceDetector.Verdict verdict;
+
+        SolverResult(long steps, boolean converged, long elapsedNanos) {
+            this(steps, converged, elapsedNanos, null);
+        }
+
+        SolverResult(long steps, boolean converged, long elapsedNanos, DivergenceDetector.Verdict verdict) {
+            this.steps = steps;
+            this.converged = converged;
+            this.elapsedNanos = elapsedNanos;
+            this.verdict = verdict;
+        }
+    }
+
+    static GameDescription loadGame(Path file) throws IOException {
+        GameDescription description = new GameDescription();
+        GraphImporter.Result result = GraphImporter.importFile(file, description.graph, true);
+        description.declaredNodes.addAll(result.getDeclaredNodes());
+        description.initialNode = result.getInitialNode();
+        return description;
+    }
+
+    static final class SolverOptions {
+        int maxSteps = Integer.MAX_VALUE;
+        long timeLimitNanos = Long.MAX_VALUE;
+        boolean parallel;
+        long seed;
+        boolean verify;
+        boolean closedForm;
+        boolean divergenceCheck = true;
+        String scheduler;
+        ConvergenceCache cache;
+    }
+
+    static SolverResult solve(GameDescription description, SolverOptions options) {
+        KostantGame game = new KostantGame(description.graph);
+        game.setDivergenceCheckEnabled(options.divergenceCheck);
+        if (options.scheduler != null) {
+            game.setScheduler(ReflectionSchedulers.create(options.scheduler, options.seed));
+        }
+        long start = System.nanoTime();
+        game.initializeGame(description.initialNode);
+        if (options.closedForm) {
+            DynkinDiagram.Solution solution = game.playClosedForm(options.verify);
+            if (solution != null) {
+                return new SolverResult(solution.getSteps(), true, System.nanoTime() - start);
+            }
+        }
+        int steps;
+        if (options.cache != null) {
+            steps = options.parallel
+                    ? game.playUntilConvergedParallel(options.maxSteps, options.timeLimitNanos, options.seed, ForkJoinPool.commonPool(), options.verify, options.cache)
+                    : game.playUntilConverged(options.maxSteps, options.timeLimitNanos, options.cache);
+        } else {
+            steps = options.parallel
+                    ? game.playUntilConvergedParallel(options.maxSteps, options.timeLimitNanos, options.seed, ForkJoinPool.commonPool(), options.verify)
+                    : game.playUntilConverged(options.maxSteps, options.timeLimitNanos);
+        }
+        boolean converged = !game.hasUnhappyNodes();
+        return new SolverResult(steps, converged, System.nanoTime() - start, converged ? null : game.getVerdict());
+    }
+
+    static ChipEngine loadBinaryGame(GraphFile graphFile) {
+        GraphIndex index = graphFile.getIndex();
+        long[] chips = graphFile.getInitialChips();
+        if (!graphFile.hasInitialChips()) {
+            boolean hasSpecialNodes = false;
+            for (int id = 0; id < chips.length; id++) {
+                if (index.isSpecial(id)) {
+                    chips[id] = 1;
+                    hasSpecialNodes = true;
+                }
+            }
+            if (!hasSpecialNodes) {
+                throw new IllegalArgumentException("El grafo binario no tiene chips iniciales ni nodos especiales.");
+            }
+        }
+        return new ChipEngine(index, chips);
+    }
+
+    static void checkBinaryOptions(SolverOptions options) {
+        List<String> unsupported = new ArrayList<>();
+        if (options.parallel) {
+            unsupported.add("--parallel");
+        }
+        if (options.verify) {
+            unsupported.add("--verify");
+        }
+        if (options.closedForm) {
+            unsupported.add("--dynkin");
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalArgumentException("Los grafos binarios solo se resuelven con el juego secuencial; no admiten " + String.join(", ", unsupported) + ".");
+        }
+    }
+
+    static void printBinary(PrintStream out, Path file, GraphFile graphFile, SolverOptions options) {
+        checkBinaryOptions(options);
+        ChipEngine engine = loadBinaryGame(graphFile);
+        GraphIndex index = engine.getIndex();
+        long start = System.nanoTime();
+        ConvergenceCache.CanonicalForm form = null;
+        ConvergenceCache.Result cached = null;
+        if (options.cache != null) {
+            BigInteger[] chips = new BigInteger[index.nodeCount()];
+            for (int id = 0; id < chips.length; id++) {
+                chips[id] = engine.getChips(id);
+            }
+            form = options.cache.canonicalForm(index, chips);
+            cached = form != null ? options.cache.get(form) : null;
+            if (cached != null && cached.steps > options.maxSteps) {
+                cached = null;
+            }
+        }
+        SolverResult result;
+        if (cached != null) {
+            engine = new ChipEngine(index, cached.finalChips);
+            result = new SolverResult(cached.steps, true, System.nanoTime() - start);
+        } else {
+            result = solve(engine, options);
+            if (form != null && result.converged) {
+                BigInteger[] finalChips = new BigInteger[index.nodeCount()];
+                for (int id = 0; id < finalChips.length; id++) {
+                    finalChips[id] = engine.getChips(id);
+                }
+                options.cache.put(form, (int) result.steps, "binario", finalChips);
+            }
+        }
+        GameLog.flush();
+        out.printf(Locale.ROOT, "%s: pasos=%d convergido=%b%s tiempo=%.3fms chips=%s%n",
+                file, result.steps, result.converged, formatVerdict(result), result.elapsedNanos / 1e6, formatChips(engine));
+        if (result.verdict != null) {
+            out.println("  " + result.verdict.getMessage());
+        }
+    }
+
+    static SolverResult solve(ChipEngine engine, SolverOptions options) {
+        ReflectionScheduler scheduler = options.scheduler != null ? ReflectionSchedulers.create(options.scheduler, options.seed) : null;
+        EngineRun run = EngineRun.play(engine, scheduler, options.divergenceCheck, options.maxSteps, options.timeLimitNanos, "binario");
+        return new SolverResult(run.getSteps(), run.isConverged(), run.getElapsedNanos(), run.getVerdict());
+    }
+
+    static String formatVerdict(SolverResult result) {
+        return result.verdict == null ? "" : " veredicto=" + result.verdict.getLabel();
+    }
+
+    static String formatChips(ChipEngine engine) {
+        GraphIndex index = engine.getIndex();
+        StringBuilder chips = new StringBuilder("{");
+        for (int id = 0; id < index.nodeCount(); id++) {
+            if (id > 0) {
+                chips.append(", ");
+            }
+            chips.append(index.nodeName(id)).append('=').append(engine.getChips(id));
+        }
+        return chips.append('}').toString();
+    }
+
+    static Path writeBinary(GameDescription description, Path file) throws IOException {
+        KostantGame game = new KostantGame(description.graph);
+        game.initializeGame(description.initialNode);
+        GraphIndex index = description.graph.getIndex();
+        long[] chips = new long[index.nodeCount()];
+        for (int id = 0; id < chips.length; id++) {
+            chips[id] = description.graph.getChips(index.nodeName(id)).longValueExact();
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        Path target = file.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + BINARY_EXTENSION);
+        GraphFile.write(target, index, chips, null, true);
+        return target;
+    }
+
+    static String formatChips(GraphIndex index, InitialNodeSweep.Entry entry) {
+        StringBuilder chips = new StringBuilder("{");
+        for (int id = 0; id < index.nodeCount(); id++) {
+            if (id > 0) {
+                chips.append(", ");
+            }
+            chips.append(index.nodeName(id)).append('=').append(entry.getFinalChips(id));
+        }
+        return chips.append('}').toString();
+    }
+
+    static void printSweep(PrintStream out, Path file, GraphIndex index, SolverOptions options) {
+        long start = System.nanoTime();
+        List<InitialNodeSweep.Entry> entries = InitialNodeSweep.run(index, options.maxSteps, options.timeLimitNanos,
+                () -> options.scheduler != null ? ReflectionSchedulers.create(options.scheduler, options.seed) : ReflectionSchedulers.firstSad(),
+                options.divergenceCheck, ForkJoinPool.commonPool());
+        long elapsed = System.nanoTime() - start;
+        GameLog.flush();
+        int converged = 0;
+        for (InitialNodeSweep.Entry entry : entries) {
+            out.printf(Locale.ROOT, "%s: inicial=%s pasos=%d convergido=%b%s tiempo=%.3fms chips=%s%n",
+                    file, entry.getInitialNode(), entry.getSteps(), entry.isConverged(),
+                    entry.getVerdict() == null ? "" : " veredicto=" + entry.getVerdict().getLabel(), entry.getElapsedNanos() / 1e6, formatChips(index, entry));
+            if (entry.isConverged()) {
+                converged++;
+            }
+        }
+        out.printf(Locale.ROOT, "%s: barrido de %d nodos iniciales convergidos=%d tiempo=%.3fms hilos=%d%n",
+                file, entries.size(), converged, elapsed / 1e6, ForkJoinPool.commonPool().getParallelism());
+    }
+
+    static String formatChips(GameDescription description) {
+        StringBuilder chips = new StringBuilder("{");
+        for (String node : description.declaredNodes) {
+            BigInteger value = description.graph.getChips(node);
+            if (chips.length() > 1) {
+                chips.append(", ");
+            }
+            chips.append(node).append('=').append(value);
+        }
+        return chips.append('}').toString();
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("Uso: java KostantSolver [--max-steps N] [--time-limit-ms N] [--parallel] [--scheduler nombre] [--seed N] [--verify] [--dynkin] [--no-divergence-check] [--cache N] [--store archivo] [--to-binary] [--sweep] [--verbose] [--log nivel] [--metrics] archivo...");
+        out.println("Cada archivo describe un grafo con las directivas:");
+        out.println("  nodo <id>...            añade nodos (a_n)");
+        out.println("  arista <a> <b>          arista no dirigida");
+        out.println("  dirigida <a> <b> [peso] arista dirigida a -> b");
+        out.println("  especial <a>            nodo siempre feliz a' conectado a a");
+        out.println("  inicial <a>             nodo con el chip inicial (juego estándar)");
+        out.println("Los archivos " + BINARY_EXTENSION + " son grafos binarios proyectados en memoria (CSR con pesos);");
+        out.println("--to-binary convierte cada archivo de texto a ese formato en lugar de resolverlo.");
+        out.println("--parallel refleja en cada ronda un conjunto independiente de nodos tristes en varios núcleos;");
+        out.println("--verify compara ese resultado con el juego secuencial.");
+        out.println("--dynkin resuelve sin simular los grafos de texto que son diagramas de Dynkin de tipo finito");
+        out.println("        (A_n, B_n, C_n, D_n, E_6, E_7, E_8, F_4, G_2); con --verify lo compara con la simulación.");
+        out.println("--sweep juega en paralelo el juego estándar desde cada nodo inicial y muestra una fila por nodo;");
+        out.println("        ignora la directiva 'inicial' y no admite nodos especiales.");
+        out.println("--no-divergence-check no detiene antes de tiempo los juegos que ciclan o divergen (veredicto=cicla|diverge).");
+        out.println("--scheduler elige el orden de las reflexiones: " + String.join(", ", ReflectionSchedulers.names()) + ";");
+        out.println("        'aleatorio' usa la semilla de --seed.");
+        out.println("--cache N reutiliza hasta N resultados de grafos isomorfos ya resueltos;");
+        out.println("--store guarda y consulta esos resultados en un archivo persistente entre ejecuciones.");
+        out.println("--verbose muestra el registro del motor con cada reflexión (equivale a --log debug);");
+        out.println("--log fija el nivel del registro: debug, info, warn, error u off (por defecto off).");
+        out.println("--metrics imprime al final los contadores del motor (también disponibles por JMX y JFR).");
+    }
+
+    private static String optionValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("La opción '" + args[i - 1] + "' necesita un valor.");
+        }
+        return args[i];
+    }
+
+    private static int intOption(String[] args, int i) {
+        String value = optionValue(args, i);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La opción '" + args[i - 1] + "' espera un número entero y recibió '" + value + "'.");
+        }
+    }
+
+    private static long longOption(String[] args, int i) {
+        String value = optionValue(args, i);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La opción '" + args[i - 1] + "' espera un número entero y recibió '" + value + "'.");
+        }
+    }
+
+    public static void main(String[] args) {
+        SolverOptions options = new SolverOptions();
+        GameLog.Level logLevel = GameLog.Level.OFF;
+        boolean toBinary = false;
+        boolean sweep = false;
+        boolean printMetrics = false;
+        int cacheSize = 0;
+        Path storeFile = null;
+        List<Path> files = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--max-steps":
+                        options.maxSteps = intOption(args, ++i);
+                        break;
+                    case "--time-limit-ms":
+                        options.timeLimitNanos = longOption(args, ++i) * 1_000_000L;
+                        break;
+                    case "--parallel":
+                        options.parallel = true;
+                        break;
+                    case "--scheduler":
+                        options.scheduler = optionValue(args, ++i);
+                        ReflectionSchedulers.create(options.scheduler, 0);
+                        break;
+                    case "--seed":
+                        options.seed = longOption(args, ++i);
+                        break;
+                    case "--verify":
+                        options.verify = true;
+                        break;
+                    case "--no-divergence-check":
+                        options.divergenceCheck = false;
+                        break;
+                    case "--dynkin":
+                        options.closedForm = true;
+                        break;
+                    case "--cache":
+                        cacheSize = intOption(args, ++i);
+                        break;
+                    case "--sweep":
+                        sweep = true;
+                        break;
+                    case "--to-binary":
+                        toBinary = true;
+                        break;
+                    case "--store":
+                        storeFile = Paths.get(optionValue(args, ++i));
+                        break;
+                    case "--verbose":
+                        logLevel = GameLog.Level.DEBUG;
+                        break;
+                    case "--metrics":
+                        printMetrics = true;
+                        break;
+                    case "--log":
+                        logLevel = GameLog.parseLevel(optionValue(args, ++i));
+                        break;
+                    case "--help":
+                        printUsage(System.out);
+                        return;
+                    default:
+                        files.add(Paths.get(args[i]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage(System.err);
+            System.exit(2);
+        }
+        if (files.isEmpty()) {
+            printUsage(System.err);
+            System.exit(2);
+        }
+
+        ResultsStore store = null;
+        if (storeFile != null) {
+            try {
+                store = ResultsStore.open(storeFile);
+            } catch (IOException e) {
+                System.err.println("No se pudo abrir el almacén '" + storeFile + "': " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        if (cacheSize > 0 || store != null) {
+            options.cache = new ConvergenceCache(cacheSize > 0 ? cacheSize : ConvergenceCache.DEFAULT_MAX_ENTRIES, store);
+        }
+
+        PrintStream out = System.out;
+        GameLog.setLevel(logLevel);
+
+        int failures = 0;
+        try {
+            for (Path file : files) {
+                try {
+                    if (file.toString().endsWith(BINARY_EXTENSION)) {
+                        try (GraphFile graphFile = GraphFile.open(file)) {
+                            if (sweep) {
+                                printSweep(out, file, graphFile.getIndex(), options);
+                                continue;
+                            }
+                            printBinary(out, file, graphFile, options);
+                        }
+                        continue;
+                    }
+                    GameDescription description = loadGame(file);
+                    if (toBinary) {
+                        out.println(file + " -> " + writeBinary(description, file));
+                        continue;
+                    }
+                    if (sweep) {
+                        printSweep(out, file, description.graph.getIndex(), options);
+                        continue;
+                    }
+                    SolverResult result = solve(description, options);
+                    GameLog.flush();
+                    out.printf(Locale.ROOT, "%s: pasos=%d convergido=%b%s tiempo=%.3fms chips=%s%n",
+                            file, result.steps, result.converged, formatVerdict(result), result.elapsedNanos / 1e6, formatChips(description));
+                    if (result.verdict != null) {
+                        out.println("  " + result.verdict.getMessage());
+                    }
+                } catch (IOException | UncheckedIOException | ArithmeticException | IllegalArgumentException | IllegalStateException e) {
+                    failures++;
+                    System.err.println("Error procesando '" + file + "': " + e.getMessage());
+                }
+            }
+        } finally {
+            GameLog.flush();
+            if (store != null) {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    System.err.println("Error cerrando el almacén '" + storeFile + "': " + e.getMessage());
+                    failures++;
+                }
+            }
+        }
+        if (options.cache != null) {
+            out.println("caché: aciertos=" + options.cache.getHits() + " (almacén=" + options.cache.getStoreHits() + ") fallos=" + options.cache.getMisses() + " entradas=" + options.cache.size());
+        }
+        if (printMetrics) {
+            EngineMetrics metrics = EngineMetrics.global();
+            out.printf(Locale.ROOT, "métricas: ejecuciones=%d reflexiones=%d evaluaciones=%d sumas=%d bits_max=%d tiempo=%.3fms refl/s=%.0f%n",
+                    metrics.getRuns(), metrics.getReflections(), metrics.getStateEvaluations(), metrics.getNeighborSumUpdates(),
+                    metrics.getMaxChipBitLength(), metrics.getTotalRunMillis(), metrics.getRuns() == 0 ? 0.0 : metrics.getReflections() * 1000.0 / Math.max(metrics.getTotalRunMillis(), 1e-3));
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
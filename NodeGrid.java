@@ -0,0 +1,187 @@
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+final class NodeGrid {
+    private static final class Cell {
+        String[] names = new String[4];
+        int[] xs = new int[4];
+        int[] ys = new int[4];
+        int size;
+
+        void add(String name, int x, int y) {
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            names[size] = name;
+            xs[size] = x;
+            ys[size] = y;
+            size++;
+        }
+
+        void remove(String name) {
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(name)) {
+                    size--;
+                    names[i] = names[size];
+                    xs[i] = xs[size];
+                    ys[i] = ys[size];
+                    names[size] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    private final int cellSize;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<String, Point> positions = new HashMap<>();
+
+    public NodeGrid(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo.");
+        }
+        this.cellSize = cellSize;
+    }
+
+    private int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    public void put(String name, Point p) {
+        Point previous = positions.put(name, p);
+        if (previous != null) {
+            removeFromCell(name, previous);
+        }
+        cells.computeIfAbsent(key(cellOf(p.x), cellOf(p.y)), k -> new Cell()).add(name, p.x, p.y);
+    }
+
+    public Point remove(String name) {
+        Point previous = positions.remove(name);
+        if (previous != null) {
+            removeFromCell(name, previous);
+        }
+        return previous;
+    }
+
+    private void removeFromCell(String name, Point p) {
+        long key = key(cellOf(p.x), cellOf(p.y));
+        Cell cell = cells.get(key);
+        if (cell != null) {
+            cell.remove(name);
+            if (cell.size == 0) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    public Point get(String name) {
+        return positions.get(name);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public Collection<String> names() {
+        return Collections.unmodifiableSet(positions.keySet());
+    }
+
+    public void clear() {
+        positions.clear();
+        cells.clear();
+    }
+
+    public String nearestWithin(int x, int y, double radius) {
+        double bestDistance = radius * radius;
+        String best = null;
+        int reach = (int) Math.ceil(radius);
+        for (int cellX = cellOf(x - reach), maxX = cellOf(x + reach); cellX <= maxX; cellX++) {
+            for (int cellY = cellOf(y - reach), maxY = cellOf(y + reach); cellY <= maxY; cellY++) {
+                Cell cell = cells.get(key(cellX, cellY));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    double dx = cell.xs[i] - x;
+                    double dy = cell.ys[i] - y;
+                    double distance = dx * dx + dy * dy;
+                    if (distance <= bestDistance) {
+                        bestDistance = distance;
+                        best = cell.names[i];
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    public boolean anyWithin(int x, int y, double radius) {
+        double limit = radius * radius;
+        int reach = (int) Math.ceil(radius);
+        for (int cellX = cellOf(x - reach), maxX = cellOf(x + reach); cellX <= maxX; cellX++) {
+            for (int cellY = cellOf(y - reach), maxY = cellOf(y + reach); cellY <= maxY; cellY++) {
+                Cell cell = cells.get(key(cellX, cellY));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    double dx = cell.xs[i] - x;
+                    double dy = cell.ys[i] - y;
+                    if (dx * dx + dy * dy < limit) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public void forEachIn(Rectangle area, Consumer<String> action) {
+        int minX = cellOf(area.x);
+        int maxX = cellOf(area.x + area.width);
+        int minY = cellOf(area.y);
+        int maxY = cellOf(area.y + area.height);
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+            for (Cell cell : cells.values()) {
+                collect(cell, area, action);
+            }
+            return;
+        }
+        for (int cellX = minX; cellX <= maxX; cellX++) {
+            for (int cellY = minY; cellY <= maxY; cellY++) {
+                Cell cell = cells.get(key(cellX, cellY));
+                if (cell != null) {
+                    collect(cell, area, action);
+                }
+            }
+        }
+    }
+
+    private static void collect(Cell cell, Rectangle area, Consumer<String> action) {
+        for (int i = 0; i < cell.size; i++) {
+            if (area.contains(cell.xs[i], cell.ys[i])) {
+                action.accept(cell.names[i]);
+            }
+        }
+    }
+
+    public List<String> namesIn(Rectangle area) {
+        List<String> found = new ArrayList<>();
+        forEachIn(area, found::add);
+        return found;
+    }
+}
@@ -0,0 +1,5 @@
+enum NodeState {
+    SAD,
+    HAPPY,
+    EXCITED
+}
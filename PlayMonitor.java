@@ -0,0 +1,3 @@
+interface PlayMonitor {
+    boolean onProgress(int stepsTaken);
+}
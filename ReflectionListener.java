@@ -0,0 +1,5 @@
+import java.math.BigInteger;
+
+interface ReflectionListener {
+    void onReflection(GraphIndex index, int nodeId, BigInteger oldChips, BigInteger newChips);
+}
@@ -0,0 +1,9 @@
+interface ReflectionScheduler {
+    String getName();
+
+    void attach(ChipEngine engine);
+
+    int next();
+
+    void onReflected(int id);
+}
@@ -0,0 +1,343 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+final class ReflectionSchedulers {
+    public static final String FIRST_SAD = "primero";
+    public static final String LARGEST_DEFICIT = "deficit";
+    public static final String ROUND_ROBIN = "ronda";
+    public static final String RANDOM = "aleatorio";
+
+    private static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList(FIRST_SAD, LARGEST_DEFICIT, ROUND_ROBIN, RANDOM));
+
+    private ReflectionSchedulers() {
+    }
+
+    public static List<String> names() {
+        return NAMES;
+    }
+
+    public static ReflectionScheduler create(String name, long seed) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case FIRST_SAD:
+            case "first-sad":
+                return firstSad();
+            case LARGEST_DEFICIT:
+            case "déficit":
+            case "largest-deficit":
+                return largestDeficit();
+            case ROUND_ROBIN:
+            case "round-robin":
+                return roundRobin();
+            case RANDOM:
+            case "random":
+                return random(seed);
+            default:
+                throw new IllegalArgumentException("Planificador desconocido '" + name + "'. Use " + String.join(", ", NAMES) + ".");
+        }
+    }
+
+    public static ReflectionScheduler firstSad() {
+        return new HeapScheduler(FIRST_SAD, false);
+    }
+
+    public static ReflectionScheduler largestDeficit() {
+        return new HeapScheduler(LARGEST_DEFICIT, true);
+    }
+
+    public static ReflectionScheduler roundRobin() {
+        return new RankScheduler(ROUND_ROBIN, null);
+    }
+
+    public static ReflectionScheduler random(long seed) {
+        return new RankScheduler(RANDOM, new Random(seed));
+    }
+
+    static int compareNames(String first, String second) {
+        boolean firstNumeric = isNumeric(first);
+        boolean secondNumeric = isNumeric(second);
+        if (firstNumeric && secondNumeric) {
+            int byLength = Integer.compare(first.length(), second.length());
+            return byLength != 0 ? byLength : first.compareTo(second);
+        }
+        if (firstNumeric != secondNumeric) {
+            return firstNumeric ? -1 : 1;
+        }
+        return first.compareTo(second);
+    }
+
+    private static boolean isNumeric(String name) {
+        if (name.isEmpty() || (name.length() > 1 && name.charAt(0) == '0')) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private abstract static class RankedScheduler implements ReflectionScheduler {
+        private final String name;
+        ChipEngine engine;
+        GraphIndex index;
+        int[] rank;
+        int[] byRank;
+
+        RankedScheduler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void attach(ChipEngine engine) {
+            this.engine = engine;
+            if (engine.getIndex() != index) {
+                index = engine.getIndex();
+                int n = index.nodeCount();
+                Integer[] order = new Integer[n];
+                for (int id = 0; id < n; id++) {
+                    order[id] = id;
+                }
+                Arrays.sort(order, Comparator.comparing(index::nodeName, ReflectionSchedulers::compareNames));
+                rank = new int[n];
+                byRank = new int[n];
+                for (int r = 0; r < n; r++) {
+                    byRank[r] = order[r];
+                    rank[order[r]] = r;
+                }
+            }
+            rebuild();
+        }
+
+        @Override
+        public void onReflected(int id) {
+            refresh(id);
+            for (int k = index.outStart(id), end = index.outEnd(id); k < end; k++) {
+                refresh(index.outTarget(k));
+            }
+        }
+
+        abstract void rebuild();
+
+        abstract void refresh(int id);
+    }
+
+    private static final class HeapScheduler extends RankedScheduler {
+        private final boolean byDeficit;
+        private int[] heap;
+        private int[] position;
+        private long[] keys;
+        private BigInteger[] wideKeys;
+        private int size;
+
+        HeapScheduler(String name, boolean byDeficit) {
+            super(name);
+            this.byDeficit = byDeficit;
+        }
+
+        @Override
+        void rebuild() {
+            int n = index.nodeCount();
+            heap = new int[n];
+            position = new int[n];
+            Arrays.fill(position, -1);
+            keys = byDeficit ? new long[n] : null;
+            wideKeys = null;
+            size = 0;
+            for (int id = engine.nextSadNode(0); id >= 0; id = engine.nextSadNode(id + 1)) {
+                position[id] = size;
+                heap[size++] = id;
+                updateKey(id);
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public int next() {
+            return size == 0 ? -1 : heap[0];
+        }
+
+        @Override
+        void refresh(int id) {
+            boolean sad = engine.isSadNode(id);
+            int at = position[id];
+            if (sad && byDeficit) {
+                updateKey(id);
+            }
+            if (sad && at < 0) {
+                position[id] = size;
+                heap[size] = id;
+                siftUp(size++);
+            } else if (!sad && at >= 0) {
+                int last = heap[--size];
+                position[id] = -1;
+                if (at < size) {
+                    heap[at] = last;
+                    position[last] = at;
+                    siftDown(siftUp(at));
+                }
+            } else if (sad && byDeficit) {
+                siftDown(siftUp(at));
+            }
+        }
+
+        private void updateKey(int id) {
+            if (!byDeficit) {
+                return;
+            }
+            if (wideKeys == null) {
+                try {
+                    keys[id] = engine.getDeficitExact(id);
+                    return;
+                } catch (ArithmeticException overflow) {
+                    wideKeys = new BigInteger[keys.length];
+                    for (int i = 0; i < size; i++) {
+                        wideKeys[heap[i]] = BigInteger.valueOf(keys[heap[i]]);
+                    }
+                }
+            }
+            wideKeys[id] = engine.getDeficit(id);
+        }
+
+        private boolean before(int first, int second) {
+            if (byDeficit) {
+                int comparison = wideKeys != null ? wideKeys[first].compareTo(wideKeys[second]) : Long.compare(keys[first], keys[second]);
+                if (comparison != 0) {
+                    return comparison > 0;
+                }
+            }
+            return rank[first] < rank[second];
+        }
+
+        private int siftUp(int at) {
+            int id = heap[at];
+            while (at > 0) {
+                int parent = (at - 1) >>> 1;
+                if (!before(id, heap[parent])) {
+                    break;
+                }
+                heap[at] = heap[parent];
+                position[heap[at]] = at;
+                at = parent;
+            }
+            heap[at] = id;
+            position[id] = at;
+            return at;
+        }
+
+        private void siftDown(int at) {
+            int id = heap[at];
+            while (true) {
+                int child = 2 * at + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], id)) {
+                    break;
+                }
+                heap[at] = heap[child];
+                position[heap[at]] = at;
+                at = child;
+            }
+            heap[at] = id;
+            position[id] = at;
+        }
+    }
+
+    private static final class RankScheduler extends RankedScheduler {
+        private final Random random;
+        private int[] tree;
+        private boolean[] member;
+        private int size;
+        private int cursor;
+        private int highestBit;
+
+        RankScheduler(String name, Random random) {
+            super(name);
+            this.random = random;
+        }
+
+        @Override
+        void rebuild() {
+            int n = index.nodeCount();
+            tree = new int[n + 1];
+            member = new boolean[n];
+            size = 0;
+            for (int id = engine.nextSadNode(0); id >= 0; id = engine.nextSadNode(id + 1)) {
+                member[rank[id]] = true;
+                tree[rank[id] + 1] = 1;
+                size++;
+            }
+            for (int i = 1; i <= n; i++) {
+                int parent = i + (i & -i);
+                if (parent <= n) {
+                    tree[parent] += tree[i];
+                }
+            }
+            highestBit = n == 0 ? 0 : Integer.highestOneBit(n);
+            cursor = 0;
+        }
+
+        @Override
+        public int next() {
+            if (size == 0) {
+                return -1;
+            }
+            if (random != null) {
+                return byRank[select(1 + random.nextInt(size))];
+            }
+            int before = cursor == 0 ? 0 : prefix(cursor);
+            int found = select(before < size ? before + 1 : 1);
+            cursor = found + 1 == rank.length ? 0 : found + 1;
+            return byRank[found];
+        }
+
+        @Override
+        void refresh(int id) {
+            int r = rank[id];
+            boolean sad = engine.isSadNode(id);
+            if (sad != member[r]) {
+                member[r] = sad;
+                size += sad ? 1 : -1;
+                for (int i = r + 1, delta = sad ? 1 : -1; i < tree.length; i += i & -i) {
+                    tree[i] += delta;
+                }
+            }
+        }
+
+        private int prefix(int count) {
+            int sum = 0;
+            for (int i = count; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        private int select(int k) {
+            int at = 0;
+            for (int step = highestBit; step > 0; step >>= 1) {
+                int next = at + step;
+                if (next < tree.length && tree[next] < k) {
+                    at = next;
+                    k -= tree[next];
+                }
+            }
+            return at;
+        }
+    }
+}
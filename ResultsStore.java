@@ -0,0 +1,335 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class ResultsStore implements Closeable {
+    static final int MAGIC = 0x4B525354;
+    static final int VERSION = 1;
+    static final int SEGMENT_SIZE = 1 << 26;
+    private static final int HEADER_SIZE = 16;
+    private static final int SKIP_TO_NEXT_SEGMENT = -1;
+
+    public static final class Entry {
+        private final MappedByteBuffer buffer;
+        private final int offset;
+        private final int stepsOffset;
+        private final int nodeCountOffset;
+
+        private Entry(MappedByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.stepsOffset = offset + 16 + buffer.getInt(offset + 12);
+            this.nodeCountOffset = stepsOffset + 5 + (buffer.get(stepsOffset + 4) & 0xFF);
+        }
+
+        public int getSteps() {
+            return buffer.getInt(stepsOffset);
+        }
+
+        public String getEngine() {
+            byte[] bytes = new byte[buffer.get(stepsOffset + 4) & 0xFF];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(stepsOffset + 5 + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public int getNodeCount() {
+            return buffer.getInt(nodeCountOffset);
+        }
+
+        public BigInteger getChips(int position) {
+            int chipsOffset = offset + buffer.getInt(nodeCountOffset + 4 + 4 * position);
+            byte[] bytes = new byte[buffer.getInt(chipsOffset)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(chipsOffset + 4 + i);
+            }
+            return new BigInteger(bytes);
+        }
+    }
+
+    private static final class Table {
+        final long[] fingerprints;
+        final AtomicLongArray locations;
+        final int mask;
+        int size;
+
+        Table(int capacity) {
+            fingerprints = new long[capacity];
+            locations = new AtomicLongArray(capacity);
+            mask = capacity - 1;
+        }
+    }
+
+    private final FileChannel channel;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile Table table = new Table(1024);
+    private int writeSegment;
+    private int writeOffset;
+    private boolean closed;
+
+    private ResultsStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        FileLock lock = channel.lock();
+        try {
+            boolean empty = channel.size() == 0;
+            mapSegments();
+            MappedByteBuffer first = segments[0];
+            if (empty) {
+                first.putInt(0, MAGIC);
+                first.putInt(4, VERSION);
+                first.putInt(8, SEGMENT_SIZE);
+            } else if (first.getInt(0) != MAGIC || first.getInt(4) != VERSION || first.getInt(8) != SEGMENT_SIZE) {
+                throw new IOException("El archivo no es un almacén de resultados compatible.");
+            }
+            scan(0, HEADER_SIZE);
+        } finally {
+            lock.release();
+        }
+    }
+
+    public static ResultsStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new ResultsStore(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void mapSegments() throws IOException {
+        int segmentCount = (int) Math.max(1, (channel.size() + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        if (segmentCount <= segments.length) {
+            return;
+        }
+        MappedByteBuffer[] mapped = Arrays.copyOf(segments, segmentCount);
+        for (int s = segments.length; s < segmentCount; s++) {
+            mapped[s] = channel.map(FileChannel.MapMode.READ_WRITE, (long) s * SEGMENT_SIZE, SEGMENT_SIZE);
+        }
+        segments = mapped;
+    }
+
+    private synchronized void refresh() throws IOException {
+        if (closed) {
+            return;
+        }
+        mapSegments();
+        scan(writeSegment, writeOffset);
+    }
+
+    private void scan(int segment, int offset) throws IOException {
+        while (segment < segments.length) {
+            MappedByteBuffer buffer = segments[segment];
+            int length = offset + 4 <= SEGMENT_SIZE ? buffer.getInt(offset) : SKIP_TO_NEXT_SEGMENT;
+            if (length == SKIP_TO_NEXT_SEGMENT) {
+                segment++;
+                offset = 0;
+                continue;
+            }
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || offset + 4L + length > SEGMENT_SIZE) {
+                throw new IOException("Registro dañado en el almacén de resultados (segmento " + segment + ", posición " + offset + ").");
+            }
+            insert(buffer.getLong(offset + 4), location(segment, offset));
+            offset += align(4 + length);
+        }
+        writeSegment = Math.min(segment, segments.length - 1);
+        writeOffset = segment < segments.length ? offset : SEGMENT_SIZE;
+    }
+
+    private static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    private static long location(int segment, int offset) {
+        return (((long) segment << 32) | offset) + 1;
+    }
+
+    static long fingerprint(byte[] key) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : key) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    public Entry find(byte[] key) {
+        try {
+            refresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el almacén de resultados.", e);
+        }
+        return lookup(key);
+    }
+
+    private Entry lookup(byte[] key) {
+        long fingerprint = fingerprint(key);
+        Table current = table;
+        for (int slot = (int) fingerprint & current.mask; ; slot = (slot + 1) & current.mask) {
+            long location = current.locations.get(slot);
+            if (location == 0) {
+                return null;
+            }
+            if (current.fingerprints[slot] != fingerprint) {
+                continue;
+            }
+            location--;
+            MappedByteBuffer buffer = segments[(int) (location >>> 32)];
+            int offset = (int) location;
+            if (keyMatches(buffer, offset, key)) {
+                return new Entry(buffer, offset);
+            }
+        }
+    }
+
+    private static boolean keyMatches(MappedByteBuffer buffer, int offset, byte[] key) {
+        if (buffer.getInt(offset + 12) != key.length) {
+            return false;
+        }
+        int keyOffset = offset + 16;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(keyOffset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized boolean append(byte[] key, int steps, String engine, BigInteger[] canonicalChips) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("El almacén de resultados está cerrado.");
+        }
+        FileLock lock = channel.lock();
+        try {
+            refresh();
+            if (lookup(key) != null) {
+                return false;
+            }
+            write(key, steps, engine, canonicalChips);
+            return true;
+        } finally {
+            lock.release();
+        }
+    }
+
+    private void write(byte[] key, int steps, String engine, BigInteger[] canonicalChips) throws IOException {
+        byte[] engineBytes = engine.getBytes(StandardCharsets.UTF_8);
+        if (engineBytes.length > 255) {
+            throw new IllegalArgumentException("El nombre del motor es demasiado largo.");
+        }
+        byte[][] chipBytes = new byte[canonicalChips.length][];
+        long length = 8 + 4 + key.length + 4 + 1 + engineBytes.length + 4 + 4L * canonicalChips.length;
+        for (int i = 0; i < canonicalChips.length; i++) {
+            chipBytes[i] = canonicalChips[i].toByteArray();
+            length += 4 + chipBytes[i].length;
+        }
+        if (length + 4 > SEGMENT_SIZE - HEADER_SIZE) {
+            throw new IllegalArgumentException("El resultado es demasiado grande para el almacén (" + length + " bytes).");
+        }
+        int recordSize = align((int) length + 4);
+        if (writeOffset + recordSize > SEGMENT_SIZE) {
+            if (writeOffset + 4 <= SEGMENT_SIZE) {
+                segments[writeSegment].putInt(writeOffset, SKIP_TO_NEXT_SEGMENT);
+            }
+            addSegment();
+        }
+
+        MappedByteBuffer buffer = segments[writeSegment];
+        int offset = writeOffset;
+        int position = offset + 4;
+        buffer.putLong(position, fingerprint(key));
+        buffer.putInt(position + 8, key.length);
+        position += 12;
+        for (byte b : key) {
+            buffer.put(position++, b);
+        }
+        buffer.putInt(position, steps);
+        buffer.put(position + 4, (byte) engineBytes.length);
+        position += 5;
+        for (byte b : engineBytes) {
+            buffer.put(position++, b);
+        }
+        buffer.putInt(position, canonicalChips.length);
+        int offsetsTable = position + 4;
+        position = offsetsTable + 4 * canonicalChips.length;
+        for (int i = 0; i < chipBytes.length; i++) {
+            buffer.putInt(offsetsTable + 4 * i, position - offset);
+            buffer.putInt(position, chipBytes[i].length);
+            position += 4;
+            for (byte b : chipBytes[i]) {
+                buffer.put(position++, b);
+            }
+        }
+        buffer.putInt(offset, (int) length);
+        writeOffset = offset + recordSize;
+        insert(fingerprint(key), location(writeSegment, offset));
+    }
+
+    private void addSegment() throws IOException {
+        MappedByteBuffer[] mapped = Arrays.copyOf(segments, segments.length + 1);
+        mapped[mapped.length - 1] = channel.map(FileChannel.MapMode.READ_WRITE, (long) (mapped.length - 1) * SEGMENT_SIZE, SEGMENT_SIZE);
+        segments = mapped;
+        writeSegment = mapped.length - 1;
+        writeOffset = 0;
+    }
+
+    private void insert(long fingerprint, long location) {
+        Table current = table;
+        if ((current.size + 1) * 2 > current.fingerprints.length) {
+            Table grown = new Table(current.fingerprints.length * 2);
+            for (int slot = 0; slot < current.fingerprints.length; slot++) {
+                long existing = current.locations.get(slot);
+                if (existing != 0) {
+                    place(grown, current.fingerprints[slot], existing);
+                }
+            }
+            table = grown;
+            current = grown;
+        }
+        place(current, fingerprint, location);
+    }
+
+    private static void place(Table target, long fingerprint, long location) {
+        int slot = (int) fingerprint & target.mask;
+        while (target.locations.get(slot) != 0) {
+            slot = (slot + 1) & target.mask;
+        }
+        target.fingerprints[slot] = fingerprint;
+        target.locations.set(slot, location);
+        target.size++;
+    }
+
+    public synchronized int size() {
+        return table.size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            for (MappedByteBuffer buffer : segments) {
+                buffer.force();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
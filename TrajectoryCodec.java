@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+final class TrajectoryCodec {
+    static final int MAGIC = 0x4B54524A;
+    static final int END_MAGIC = 0x4B454E44;
+    static final int VERSION = 1;
+    static final int TAG_STEP = 1;
+    static final int TAG_KEYFRAME = 2;
+    static final int TAG_END = 3;
+
+    private TrajectoryCodec() {
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeSigned(OutputStream out, BigInteger value) throws IOException {
+        if (value.bitLength() <= 62) {
+            long v = value.longValue();
+            writeVarLong(out, ((v << 1) ^ (v >> 63)) << 1);
+        } else {
+            byte[] bytes = value.toByteArray();
+            writeVarLong(out, ((long) bytes.length << 1) | 1);
+            out.write(bytes);
+        }
+    }
+
+    static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalStateException("Entero variable mal formado en la trayectoria.");
+            }
+        }
+    }
+
+    static BigInteger readSigned(ByteBuffer in) {
+        long header = readVarLong(in);
+        if ((header & 1) == 0) {
+            long zigzag = header >>> 1;
+            return BigInteger.valueOf((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+        byte[] bytes = new byte[(int) (header >>> 1)];
+        in.get(bytes);
+        return new BigInteger(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
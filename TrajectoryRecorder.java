@@ -0,0 +1,144 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+final class TrajectoryRecorder implements ReflectionListener, Closeable {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 1024;
+
+    private static final class CountingOutputStream extends BufferedOutputStream {
+        private long written;
+
+        CountingOutputStream(OutputStream out) {
+            super(out, 1 << 16);
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            super.write(b);
+            written++;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            written += len;
+        }
+    }
+
+    private final CountingOutputStream out;
+    private final GraphIndex index;
+    private final BigInteger[] chips;
+    private final int keyframeInterval;
+    private final List<long[]> keyframes = new ArrayList<>();
+    private long steps;
+    private boolean closed;
+
+    private TrajectoryRecorder(Path file, GraphIndex index, BigInteger[] initialChips, int keyframeInterval) throws IOException {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("El intervalo entre fotogramas clave debe ser positivo.");
+        }
+        this.out = new CountingOutputStream(Files.newOutputStream(file));
+        this.index = index;
+        this.chips = initialChips;
+        this.keyframeInterval = keyframeInterval;
+
+        writeInt(TrajectoryCodec.MAGIC);
+        TrajectoryCodec.writeVarLong(out, TrajectoryCodec.VERSION);
+        TrajectoryCodec.writeVarLong(out, keyframeInterval);
+        TrajectoryCodec.writeVarLong(out, index.nodeCount());
+        for (int id = 0; id < index.nodeCount(); id++) {
+            TrajectoryCodec.writeString(out, index.nodeName(id));
+        }
+        writeKeyframe();
+    }
+
+    public static TrajectoryRecorder start(Path file, KostantGame game, int keyframeInterval) throws IOException {
+        synchronized (game) {
+            int n = game.getNodeCount();
+            BigInteger[] initialChips = new BigInteger[n];
+            for (int id = 0; id < n; id++) {
+                initialChips[id] = game.getChips(id);
+            }
+            TrajectoryRecorder recorder = new TrajectoryRecorder(file, game.getIndex(), initialChips, keyframeInterval);
+            game.addReflectionListener(recorder);
+            return recorder;
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.write(value >>> shift);
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void writeKeyframe() throws IOException {
+        keyframes.add(new long[] {steps, out.written});
+        out.write(TrajectoryCodec.TAG_KEYFRAME);
+        TrajectoryCodec.writeVarLong(out, steps);
+        for (BigInteger value : chips) {
+            TrajectoryCodec.writeSigned(out, value);
+        }
+    }
+
+    @Override
+    public synchronized void onReflection(GraphIndex reflectionIndex, int nodeId, BigInteger oldChips, BigInteger newChips) {
+        if (closed || reflectionIndex != index) {
+            return;
+        }
+        try {
+            out.write(TrajectoryCodec.TAG_STEP);
+            TrajectoryCodec.writeVarLong(out, nodeId);
+            TrajectoryCodec.writeSigned(out, newChips.subtract(oldChips));
+            chips[nodeId] = newChips;
+            steps++;
+            if (steps % keyframeInterval == 0) {
+                writeKeyframe();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la trayectoria.", e);
+        }
+    }
+
+    public synchronized long getSteps() {
+        return steps;
+    }
+
+    public void detach(KostantGame game) throws IOException {
+        game.removeReflectionListener(this);
+        close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long footerOffset = out.written;
+            out.write(TrajectoryCodec.TAG_END);
+            TrajectoryCodec.writeVarLong(out, steps);
+            TrajectoryCodec.writeVarLong(out, keyframes.size());
+            for (long[] keyframe : keyframes) {
+                TrajectoryCodec.writeVarLong(out, keyframe[0]);
+                TrajectoryCodec.writeVarLong(out, keyframe[1]);
+            }
+            writeLong(footerOffset);
+            writeInt(TrajectoryCodec.END_MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+}
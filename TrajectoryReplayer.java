@@ -0,0 +1,143 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+final class TrajectoryReplayer implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final String[] nodeNames;
+    private final int keyframeInterval;
+    private final long totalSteps;
+    private final long[] keyframeSteps;
+    private final long[] keyframeOffsets;
+
+    private TrajectoryReplayer(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("La trayectoria es demasiado grande para proyectarse en memoria.");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+        if (size < 12 || buffer.getInt(0) != TrajectoryCodec.MAGIC || buffer.getInt((int) size - 4) != TrajectoryCodec.END_MAGIC) {
+            throw new IOException("El archivo no es una trayectoria completa del juego de Kostant.");
+        }
+        ByteBuffer header = buffer.duplicate();
+        header.position(4);
+        long version = TrajectoryCodec.readVarLong(header);
+        if (version != TrajectoryCodec.VERSION) {
+            throw new IOException("Versión de trayectoria no soportada: " + version + ".");
+        }
+        this.keyframeInterval = (int) TrajectoryCodec.readVarLong(header);
+        int nodeCount = (int) TrajectoryCodec.readVarLong(header);
+        this.nodeNames = new String[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            nodeNames[id] = TrajectoryCodec.readString(header);
+        }
+
+        ByteBuffer footer = buffer.duplicate();
+        footer.position((int) buffer.getLong((int) size - 12));
+        if (footer.get() != TrajectoryCodec.TAG_END) {
+            throw new IOException("Pie de trayectoria dañado.");
+        }
+        this.totalSteps = TrajectoryCodec.readVarLong(footer);
+        int keyframeCount = (int) TrajectoryCodec.readVarLong(footer);
+        this.keyframeSteps = new long[keyframeCount];
+        this.keyframeOffsets = new long[keyframeCount];
+        for (int i = 0; i < keyframeCount; i++) {
+            keyframeSteps[i] = TrajectoryCodec.readVarLong(footer);
+            keyframeOffsets[i] = TrajectoryCodec.readVarLong(footer);
+        }
+    }
+
+    public static TrajectoryReplayer open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new TrajectoryReplayer(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeNames.length;
+    }
+
+    public String getNodeName(int id) {
+        return nodeNames[id];
+    }
+
+    public long getTotalSteps() {
+        return totalSteps;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public BigInteger[] chipsAt(long step) {
+        if (step < 0 || step > totalSteps) {
+            throw new IllegalArgumentException("El paso " + step + " está fuera de la trayectoria (0.." + totalSteps + ").");
+        }
+        int low = 0;
+        int high = keyframeSteps.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (keyframeSteps[middle] <= step) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        ByteBuffer in = buffer.duplicate();
+        in.position((int) keyframeOffsets[low]);
+        in.get();
+        long current = TrajectoryCodec.readVarLong(in);
+        BigInteger[] chips = new BigInteger[nodeNames.length];
+        for (int id = 0; id < chips.length; id++) {
+            chips[id] = TrajectoryCodec.readSigned(in);
+        }
+
+        while (current < step) {
+            int tag = in.get();
+            if (tag == TrajectoryCodec.TAG_KEYFRAME) {
+                TrajectoryCodec.readVarLong(in);
+                for (int id = 0; id < chips.length; id++) {
+                    TrajectoryCodec.readSigned(in);
+                }
+                continue;
+            }
+            if (tag != TrajectoryCodec.TAG_STEP) {
+                throw new IllegalStateException("Registro inesperado en la trayectoria: " + tag + ".");
+            }
+            int nodeId = (int) TrajectoryCodec.readVarLong(in);
+            chips[nodeId] = chips[nodeId].add(TrajectoryCodec.readSigned(in));
+            current++;
+        }
+        return chips;
+    }
+
+    public void applyTo(Graph graph, long step) {
+        for (int id = 0; id < nodeNames.length; id++) {
+            if (!graph.containsNode(nodeNames[id])) {
+                throw new IllegalArgumentException("El nodo '" + nodeNames[id] + "' de la trayectoria no existe en el grafo.");
+            }
+        }
+        BigInteger[] chips = chipsAt(step);
+        for (int id = 0; id < chips.length; id++) {
+            graph.setChips(nodeNames[id], chips[id]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,346 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class KostantBenchmark {
+
+    enum GraphFamily {
+        A("A_n") {
+            @Override
+            Graph build(int n) {
+                Graph graph = nodes(n);
+                for (int i = 1; i < n; i++) {
+                    graph.addUndirectedEdge(name(i), name(i + 1));
+                }
+                return graph;
+            }
+        },
+        D("D_n") {
+            @Override
+            Graph build(int n) {
+                Graph graph = nodes(n);
+                for (int i = 1; i < n - 1; i++) {
+                    graph.addUndirectedEdge(name(i), name(i + 1));
+                }
+                graph.addUndirectedEdge(name(n - 2), name(n));
+                return graph;
+            }
+        },
+        E("E_n") {
+            @Override
+            int[] sizes(int[] requested) {
+                return new int[] {6, 7, 8};
+            }
+
+            @Override
+            Graph build(int n) {
+                Graph graph = nodes(n);
+                graph.addUndirectedEdge(name(1), name(3));
+                for (int i = 3; i < n; i++) {
+                    graph.addUndirectedEdge(name(i), name(i + 1));
+                }
+                graph.addUndirectedEdge(name(2), name(4));
+                return graph;
+            }
+        },
+        AFFINE("A~_n") {
+            @Override
+            Graph build(int n) {
+                Graph graph = A.build(n);
+                graph.addUndirectedEdge(name(n), name(1));
+                return graph;
+            }
+        },
+        STAR("Estrella") {
+            @Override
+            Graph build(int n) {
+                Graph graph = nodes(n);
+                for (int i = 2; i <= n; i++) {
+                    graph.addUndirectedEdge(name(1), name(i));
+                }
+                return graph;
+            }
+        },
+        MODIFIED("A_n + a_n'") {
+            @Override
+            Graph build(int n) {
+                Graph graph = A.build(n);
+                graph.addSpecialNode(name(1));
+                graph.addSpecialNode(name(n));
+                return graph;
+            }
+        };
+
+        final String label;
+
+        GraphFamily(String label) {
+            this.label = label;
+        }
+
+        abstract Graph build(int n);
+
+        int[] sizes(int[] requested) {
+            return requested;
+        }
+
+        static Graph nodes(int n) {
+            Graph graph = new Graph();
+            for (int i = 1; i <= n; i++) {
+                graph.addNode(name(i));
+            }
+            return graph;
+        }
+
+        static String name(int i) {
+            return String.valueOf(i);
+        }
+    }
+
+    interface Operation {
+        long invoke();
+    }
+
+    interface OperationFactory {
+        Operation create(Graph graph, KostantGame game, int n);
+    }
+
+    static final class Result {
+        final String benchmark;
+        final String family;
+        final int n;
+        final double nanosPerOp;
+        final double bytesPerOp;
+        final String extra;
+
+        Result(String benchmark, String family, int n, double nanosPerOp, double bytesPerOp, String extra) {
+            this.benchmark = benchmark;
+            this.family = family;
+            this.n = n;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.extra = extra;
+        }
+    }
+
+    static volatile Object sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final long warmupNanos;
+    private final long iterationNanos;
+    private final int iterations;
+    private final int maxSteps;
+
+    KostantBenchmark(long warmupNanos, long iterationNanos, int iterations, int maxSteps) {
+        this.warmupNanos = warmupNanos;
+        this.iterationNanos = iterationNanos;
+        this.iterations = iterations;
+        this.maxSteps = maxSteps;
+    }
+
+    static Map<String, OperationFactory> benchmarks(int maxSteps) {
+        Map<String, OperationFactory> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("getNodeState", (graph, game, n) -> {
+            List<String> nodes = graph.getAllNodes();
+            int[] cursor = {0};
+            return () -> {
+                String node = nodes.get(cursor[0]);
+                cursor[0] = (cursor[0] + 1) % nodes.size();
+                sink = game.getNodeState(node);
+                return 1;
+            };
+        });
+        benchmarks.put("getNodeStateById", (graph, game, n) -> {
+            int nodeCount = game.getNodeCount();
+            int[] cursor = {0};
+            return () -> {
+                sink = game.getNodeState(cursor[0]);
+                cursor[0] = (cursor[0] + 1) % nodeCount;
+                return 1;
+            };
+        });
+        benchmarks.put("getUnhappyNodes", (graph, game, n) -> () -> {
+            sink = game.getUnhappyNodes();
+            return 1;
+        });
+        benchmarks.put("performReflection", (graph, game, n) -> {
+            String initial = GraphFamily.name(1);
+            return () -> {
+                String next = game.getNextUnhappyNode();
+                if (next == null) {
+                    game.initializeGame(initial);
+                    return 0;
+                }
+                sink = game.performReflection(next);
+                return 1;
+            };
+        });
+        benchmarks.put("reflectNode", (graph, game, n) -> {
+            String initial = GraphFamily.name(1);
+            return () -> {
+                int next = game.getNextUnhappyNodeId();
+                if (next < 0) {
+                    game.initializeGame(initial);
+                    return 0;
+                }
+                game.reflectNode(next);
+                return 1;
+            };
+        });
+        benchmarks.put("playUntilConverged", (graph, game, n) -> {
+            String initial = GraphFamily.name(1);
+            return () -> {
+                game.initializeGame(initial);
+                sink = game.playUntilConverged(maxSteps);
+                return 1;
+            };
+        });
+        for (String scheduler : ReflectionSchedulers.names()) {
+            benchmarks.put("scheduler:" + scheduler, (graph, game, n) -> {
+                String initial = GraphFamily.name(1);
+                game.setScheduler(ReflectionSchedulers.create(scheduler, 1));
+                return () -> {
+                    game.initializeGame(initial);
+                    sink = game.playUntilConverged(maxSteps);
+                    return 1;
+                };
+            });
+        }
+        benchmarks.put("getIncomingEdgesWithWeights", (graph, game, n) -> {
+            List<String> nodes = graph.getAllNodes();
+            int[] cursor = {0};
+            return () -> {
+                String node = nodes.get(cursor[0]);
+                cursor[0] = (cursor[0] + 1) % nodes.size();
+                sink = graph.getIncomingEdgesWithWeights(node);
+                return 1;
+            };
+        });
+        return benchmarks;
+    }
+
+    Result measure(String benchmark, GraphFamily family, int n, OperationFactory factory) {
+        Graph graph = family.build(n);
+        KostantGame game = new KostantGame(graph);
+        game.initializeGame(GraphFamily.name(1));
+        Operation operation = factory.create(graph, game, n);
+
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        while (System.nanoTime() < warmupEnd) {
+            operation.invoke();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            long deadline = start + iterationNanos;
+            long ops = 0;
+            long now;
+            do {
+                ops += operation.invoke();
+                now = System.nanoTime();
+            } while (now < deadline);
+            totalNanos += now - start;
+            totalBytes += THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+            totalOps += ops;
+        }
+
+        String extra = "";
+        if (benchmark.equals("playUntilConverged") || benchmark.startsWith("scheduler:")) {
+            game.initializeGame(GraphFamily.name(1));
+            int steps = game.playUntilConverged(maxSteps);
+            extra = "pasos=" + steps + (game.hasUnhappyNodes() ? " (sin convergencia)" : "");
+            if (game.getVerdict() != null) {
+                extra += " veredicto=" + game.getVerdict().getLabel();
+            }
+        }
+        double ops = Math.max(1, totalOps);
+        return new Result(benchmark, family.label, n, totalNanos / ops, totalBytes / ops, extra);
+    }
+
+    static void print(PrintStream out, Result result) {
+        double opsPerSecond = 1e9 / result.nanosPerOp;
+        double allocationRate = result.bytesPerOp * opsPerSecond / (1024 * 1024);
+        out.printf(Locale.ROOT, "%-28s %-12s %9d %14.1f ops/s %14.1f ns/op %12.1f B/op %10.1f MB/s  %s%n",
+                result.benchmark, result.family, result.n, opsPerSecond, result.nanosPerOp, result.bytesPerOp, allocationRate, result.extra);
+    }
+
+    private static int[] parseSizes(String value) {
+        return Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {10, 100, 1000};
+        List<GraphFamily> families = new ArrayList<>(Arrays.asList(GraphFamily.values()));
+        List<String> selected = null;
+        long warmupMillis = 500;
+        long iterationMillis = 1000;
+        int iterations = 3;
+        int maxSteps = 100_000;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = parseSizes(args[++i]);
+                    break;
+                case "--families":
+                    families.clear();
+                    for (String family : args[++i].split(",")) {
+                        families.add(GraphFamily.valueOf(family.toUpperCase(Locale.ROOT)));
+                    }
+                    break;
+                case "--benchmarks":
+                    selected = Arrays.asList(args[++i].split(","));
+                    break;
+                case "--warmup-ms":
+                    warmupMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--iteration-ms":
+                    iterationMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-steps":
+                    maxSteps = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Opción desconocida: " + args[i]);
+                    System.err.println("Uso: java KostantBenchmark [--sizes 10,100,...] [--families A,D,E,AFFINE,STAR,MODIFIED] [--benchmarks nombre,...] [--warmup-ms N] [--iteration-ms N] [--iterations N] [--max-steps N]");
+                    System.exit(2);
+            }
+        }
+
+        if (THREADS.isThreadAllocatedMemorySupported()) {
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        PrintStream out = System.out;
+        GameLog.Level previousLevel = GameLog.getLevel();
+        GameLog.setLevel(GameLog.Level.OFF);
+        try {
+            KostantBenchmark harness = new KostantBenchmark(warmupMillis * 1_000_000L, iterationMillis * 1_000_000L, iterations, maxSteps);
+            for (Map.Entry<String, OperationFactory> entry : benchmarks(maxSteps).entrySet()) {
+                if (selected != null && !selected.contains(entry.getKey())) {
+                    continue;
+                }
+                for (GraphFamily family : families) {
+                    for (int n : family.sizes(sizes)) {
+                        print(out, harness.measure(entry.getKey(), family, n, entry.getValue()));
+                    }
+                }
+            }
+        } finally {
+            GameLog.setLevel(previousLevel);
+        }
+    }
+}